@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Методы FilmDbStorage на наборах из 1k, 100k и 1M лайков.
+ * Throughput даёт операции в секунду, SampleTime - распределение задержек с перцентилями.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilmStorageBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int likes;
+
+    private StorageDataset dataset;
+    private FilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = new StorageDataset(likes);
+        filmStorage = dataset.filmStorage;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public Optional<Film> findById() {
+        return filmStorage.findById(randomFilmId());
+    }
+
+    @Benchmark
+    public List<Film> findAll() {
+        return filmStorage.findAll();
+    }
+
+    @Benchmark
+    public List<Film> findPage() {
+        return filmStorage.findPage(randomFilmId() - 1, 100);
+    }
+
+    @Benchmark
+    public List<Film> findPopularFilms() {
+        return filmStorage.findPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<Film> findByIds() {
+        return filmStorage.findByIds(List.of(randomFilmId(), randomFilmId(), randomFilmId(), randomFilmId(),
+                randomFilmId(), randomFilmId(), randomFilmId(), randomFilmId(), randomFilmId(), randomFilmId()));
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> findLikeCounts() {
+        return filmStorage.findLikeCounts();
+    }
+
+    @Benchmark
+    public Set<Integer> findExistingIds() {
+        return filmStorage.findExistingIds(List.of(randomFilmId(), randomFilmId(), Integer.MAX_VALUE));
+    }
+
+    // Лайк сразу снимается, чтобы размер набора не менялся между итерациями
+    @Benchmark
+    public boolean addLike() {
+        int filmId = randomFilmId();
+        filmStorage.addLike(filmId, dataset.spareUserId);
+
+        return filmStorage.removeLike(filmId, dataset.spareUserId);
+    }
+
+    @Benchmark
+    public boolean addLikeExisting() {
+        return filmStorage.addLike(1, 1 % StorageDataset.USERS + 1);
+    }
+
+    private int randomFilmId() {
+        return ThreadLocalRandom.current().nextInt(dataset.films) + 1;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.model.IdSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лайки одного фильма в прежнем List&lt;Integer&gt; и в IdSet на 1k, 100k и 2M лайков.
+ * Размер обоих наборов в куче (по графу объектов, JOL) печатается при подготовке каждого параметра,
+ * бенчмарки сравнивают проверку лайка и снятие с повторной постановкой.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LikeSetBenchmark {
+
+    @Param({"1000", "100000", "2000000"})
+    private int likes;
+
+    // Лайкнувшие идут не подряд: для подряд идущих id битмап сжался бы ещё сильнее
+    private static final int ID_STEP = 3;
+
+    private List<Integer> list;
+    private IdSet idSet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        list = new ArrayList<>(likes);
+        idSet = new IdSet();
+        for (int i = 0; i < likes; i++) {
+            list.add(i * ID_STEP);
+            idSet.add(i * ID_STEP);
+        }
+        idSet.compact();
+        long listBytes = GraphLayout.parseInstance(list).totalSize();
+        long idSetBytes = GraphLayout.parseInstance(idSet).totalSize();
+        System.out.printf("%nЛайков: %d, List<Integer>: %d байт, IdSet: %d байт (в %.1f раза меньше)%n",
+                likes, listBytes, idSetBytes, (double) listBytes / idSetBytes);
+    }
+
+    @Benchmark
+    public boolean listContains() {
+        return list.contains(randomUserId());
+    }
+
+    @Benchmark
+    public boolean idSetContains() {
+        return idSet.contains(randomUserId());
+    }
+
+    @Benchmark
+    public boolean listRemoveAndAdd() {
+        Integer userId = randomUserId();
+        list.remove(userId);
+
+        return list.add(userId);
+    }
+
+    @Benchmark
+    public boolean idSetRemoveAndAdd() {
+        int userId = randomUserId();
+        idSet.remove(userId);
+
+        return idSet.add(userId);
+    }
+
+    private int randomUserId() {
+        return ThreadLocalRandom.current().nextInt(likes) * ID_STEP;
+    }
+}
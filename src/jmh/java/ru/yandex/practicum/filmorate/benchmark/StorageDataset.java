@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Встроенная H2 со схемой приложения и набором данных заданного размера.
+ * Каждый фильм получает LIKES_PER_FILM лайков, поэтому число фильмов растёт вместе с числом лайков.
+ */
+class StorageDataset {
+
+    static final int USERS = 1_000;
+    static final int LIKES_PER_FILM = 100;
+    static final int FRIENDS_PER_USER = 20;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final HikariDataSource dataSource;
+
+    final JdbcTemplate jdbcTemplate;
+    final FilmDbStorage filmStorage;
+    final UserDbStorage userStorage;
+    final int films;
+    // Пользователь без лайков и друзей: на нём меряется запись лайка
+    final int spareUserId;
+
+    StorageDataset(int likes) {
+        // Без Spring Boot logback пишет DEBUG, и вывод логов начинает мерить сам себя
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        // Пул, как в приложении: иначе каждый вызов открывал бы новое соединение
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:bench" + likes + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"));
+        populator.setSqlScriptEncoding(StandardCharsets.UTF_8.name());
+        populator.execute(dataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        GenreDbStorage genreStorage = new GenreDbStorage(jdbcTemplate);
+        MpaDbStorage mpaStorage = new MpaDbStorage(jdbcTemplate);
+        genreStorage.reload();
+        mpaStorage.reload();
+        filmStorage = new FilmDbStorage(jdbcTemplate, genreStorage, mpaStorage);
+        userStorage = new UserDbStorage(jdbcTemplate);
+
+        films = Math.max(1, likes / LIKES_PER_FILM);
+        seedUsers();
+        seedFilms();
+        seedLikes();
+        seedFriends();
+        spareUserId = USERS + 1;
+        jdbcTemplate.update("INSERT INTO USERS (USER_ID, EMAIL, LOGIN, USER_NAME, BIRTHDAY) VALUES (?, ?, ?, ?, ?)",
+                spareUserId, "spare@bench.ru", "spare", "Spare", Date.valueOf(LocalDate.of(1990, 1, 1)));
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private void seedUsers() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 1; id <= USERS; id++) {
+            rows.add(new Object[]{id, "user" + id + "@bench.ru", "user" + id, "User" + id,
+                    Date.valueOf(LocalDate.of(1990, 1, 1))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO USERS (USER_ID, EMAIL, LOGIN, USER_NAME, BIRTHDAY) " +
+                "VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    private void seedFilms() {
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> genres = new ArrayList<>();
+        for (int id = 1; id <= films; id++) {
+            rows.add(new Object[]{id, "film" + id, "film description " + id,
+                    Date.valueOf(LocalDate.of(2000, 1, 1)), 100, 5, id % 5 + 1, LIKES_PER_FILM});
+            genres.add(new Object[]{id, id % 6 + 1});
+            if (rows.size() == BATCH_SIZE) {
+                insertFilms(rows, genres);
+            }
+        }
+        insertFilms(rows, genres);
+    }
+
+    private void insertFilms(List<Object[]> rows, List<Object[]> genres) {
+        jdbcTemplate.batchUpdate("INSERT INTO FILMS " +
+                "(FILM_ID, FILM_NAME, DESCRIPTION, RELEASE_DATE, DURATION, RATE, RATING_ID, LIKE_COUNT) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.batchUpdate("INSERT INTO FILM_GENRE (FILM_ID, GENRE_ID) VALUES (?, ?)", genres);
+        rows.clear();
+        genres.clear();
+    }
+
+    // Лайки фильма ставят LIKES_PER_FILM разных пользователей подряд, со сдвигом на id фильма
+    private void seedLikes() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int filmId = 1; filmId <= films; filmId++) {
+            for (int i = 0; i < LIKES_PER_FILM; i++) {
+                rows.add(new Object[]{(filmId + i) % USERS + 1, filmId});
+            }
+            if (rows.size() >= BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("INSERT INTO LIKES (USER_ID, FILM_ID) VALUES (?, ?)", rows);
+                rows.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO LIKES (USER_ID, FILM_ID) VALUES (?, ?)", rows);
+    }
+
+    private void seedFriends() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int userId = 1; userId <= USERS; userId++) {
+            for (int i = 1; i <= FRIENDS_PER_USER; i++) {
+                rows.add(new Object[]{userId, (userId + i - 1) % USERS + 1, false});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO FRIENDSHIP (USER_ID, FRIEND_ID, STATUS) VALUES (?, ?, ?)", rows);
+    }
+
+    void close() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.close();
+    }
+}
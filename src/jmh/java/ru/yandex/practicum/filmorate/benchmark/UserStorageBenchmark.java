@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Методы UserDbStorage на тех же наборах данных, что и {@link FilmStorageBenchmark}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserStorageBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int likes;
+
+    private StorageDataset dataset;
+    private UserStorage userStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = new StorageDataset(likes);
+        userStorage = dataset.userStorage;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public User findUser() {
+        return userStorage.findUser(randomUserId());
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return userStorage.findById(randomUserId());
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userStorage.findAll();
+    }
+
+    @Benchmark
+    public List<User> findPage() {
+        return userStorage.findPage(randomUserId() - 1, 100);
+    }
+
+    @Benchmark
+    public List<User> findFriends() {
+        return userStorage.findFriends(randomUserId());
+    }
+
+    @Benchmark
+    public List<User> findCommonFriends() {
+        int userId = randomUserId();
+
+        return userStorage.findCommonFriends(userId, userId % StorageDataset.USERS + 1);
+    }
+
+    @Benchmark
+    public boolean isNotExist() {
+        return userStorage.isNotExist(randomUserId());
+    }
+
+    @Benchmark
+    public Set<Integer> findExistingIds() {
+        return userStorage.findExistingIds(List.of(randomUserId(), randomUserId(), Integer.MAX_VALUE));
+    }
+
+    // Заявка в друзья сразу отзывается, чтобы размер набора не менялся между итерациями
+    @Benchmark
+    public boolean addFriendship() {
+        int friendId = randomUserId();
+        userStorage.addFriendship(dataset.spareUserId, friendId);
+
+        return userStorage.removeFriendship(dataset.spareUserId, friendId);
+    }
+
+    private int randomUserId() {
+        return ThreadLocalRandom.current().nextInt(StorageDataset.USERS) + 1;
+    }
+}
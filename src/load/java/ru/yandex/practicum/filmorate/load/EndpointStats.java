@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.util.Arrays;
+
+/**
+ * Задержки одного эндпоинта в микросекундах. Хранятся все замеры: перцентили считаются точно.
+ */
+class EndpointStats {
+
+    final String endpoint;
+
+    private long[] latencies = new long[1024];
+    private int count = 0;
+    private long clientErrors = 0;
+    private long serverErrors = 0;
+
+    EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    // status 0 - запрос не дошёл до сервера
+    synchronized void record(long latencyMicros, int status) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyMicros;
+        if (status >= 400 && status < 500) {
+            clientErrors++;
+        } else if (status == 0 || status >= 500) {
+            serverErrors++;
+        }
+    }
+
+    synchronized Snapshot snapshot(double durationSeconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+
+        return new Snapshot(endpoint, count, clientErrors, serverErrors, count / durationSeconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                count == 0 ? 0 : sorted[count - 1]);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    static class Snapshot {
+        public final String endpoint;
+        public final long requests;
+        public final long clientErrors;
+        public final long serverErrors;
+        public final double throughput;
+        public final long p50Micros;
+        public final long p99Micros;
+        public final long p999Micros;
+        public final long maxMicros;
+
+        Snapshot(String endpoint, long requests, long clientErrors, long serverErrors, double throughput,
+                 long p50Micros, long p99Micros, long p999Micros, long maxMicros) {
+            this.endpoint = endpoint;
+            this.requests = requests;
+            this.clientErrors = clientErrors;
+            this.serverErrors = serverErrors;
+            this.throughput = throughput;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.p999Micros = p999Micros;
+            this.maxMicros = maxMicros;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package ru.yandex.practicum.filmorate.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный прогон запросов из postman.json.
+ * Запуск: mvn -P load test-compile exec:java [-Dload.users=50 -Dload.duration=30 -Dload.rate=0 ...]
+ *
+ * <p>Параметры (системные свойства):
+ * <ul>
+ *     <li>load.baseUrl - адрес уже запущенного приложения; без него приложение поднимается в этом же JVM
+ *     на случайном порту с H2 в памяти</li>
+ *     <li>load.users - число виртуальных пользователей, по умолчанию 50</li>
+ *     <li>load.duration и load.warmup - длительность замера и прогрева в секундах, по умолчанию 30 и 5</li>
+ *     <li>load.rate - суммарная частота запросов в секунду; 0 - каждый пользователь шлёт запросы без пауз</li>
+ *     <li>load.mix - веса эндпоинтов, например "GET /films/popular=5;GET /users/{id}/friends=3";
+ *     по умолчанию все GET-эндпоинты коллекции с весом 1</li>
+ *     <li>load.collection - путь к коллекции вместо postman.json из ресурсов</li>
+ *     <li>load.report - файл JSON-отчёта, по умолчанию target/load-report.json</li>
+ *     <li>load.threads - потоки обработки запросов во встроенном приложении: platform (пул Tomcat, по умолчанию),
+ *     virtual (filmorate.threads.virtual=true, нужна Java 21+) или compare - оба режима подряд
+ *     с одинаковой нагрузкой, отчёт тогда содержит результаты по каждому режиму</li>
+ * </ul>
+ *
+ * <p>Перед замером вся коллекция один раз проигрывается по порядку, чтобы в базе появились
+ * пользователи, фильмы, друзья и лайки, на которые ссылаются запросы.
+ * При заданном load.rate задержка отсчитывается от запланированного момента отправки,
+ * поэтому очередь из-за медленного сервера тоже попадает в перцентили.
+ */
+public class LoadHarness {
+
+    private static final String PLATFORM = "platform";
+    private static final String VIRTUAL = "virtual";
+    private static final String COMPARE = "compare";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+    private final Map<String, EndpointStats> stats = new TreeMap<>();
+
+    private LoadHarness(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("load.users", 50);
+        int durationSeconds = Integer.getInteger("load.duration", 30);
+        int warmupSeconds = Integer.getInteger("load.warmup", 5);
+        double rate = Double.parseDouble(System.getProperty("load.rate", "0"));
+        String reportPath = System.getProperty("load.report", "target/load-report.json");
+        String threads = System.getProperty("load.threads", PLATFORM);
+        String baseUrl = System.getProperty("load.baseUrl");
+        boolean external = baseUrl != null && !baseUrl.isBlank();
+
+        List<String> modes = COMPARE.equals(threads) ? List.of(PLATFORM, VIRTUAL) : List.of(threads);
+        for (String mode : modes) {
+            if (!PLATFORM.equals(mode) && !VIRTUAL.equals(mode)) {
+                throw new IllegalArgumentException("load.threads: platform, virtual или compare, а не " + mode);
+            }
+        }
+        if (external && COMPARE.equals(threads)) {
+            throw new IllegalArgumentException("Сравнение режимов потоков возможно только без load.baseUrl");
+        }
+
+        List<PostmanCollection.Request> collection;
+        try (InputStream json = openCollection()) {
+            collection = PostmanCollection.load(json);
+        }
+        Mix mix = Mix.of(collection, System.getProperty("load.mix"));
+        System.out.printf("Эндпоинты коллекции: %s%n", Mix.endpoints(collection));
+        System.out.printf("Нагрузка: %d пользователей, %s, прогрев %d с, замер %d с, смесь %s%n",
+                users, rate > 0 ? rate + " запросов/с" : "без ограничения частоты",
+                warmupSeconds, durationSeconds, mix);
+
+        Map<String, List<EndpointStats.Snapshot>> reports = new LinkedHashMap<>();
+        for (String mode : modes) {
+            ConfigurableApplicationContext context = null;
+            String url = baseUrl;
+            if (!external) {
+                context = start(mode);
+                url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            }
+            try {
+                LoadHarness harness = new LoadHarness(url);
+                harness.seed(collection);
+                if (!external) {
+                    System.out.printf("%nПотоки запросов: %s%n", mode);
+                }
+                List<EndpointStats.Snapshot> report = harness.run(mix, users, rate, warmupSeconds, durationSeconds);
+                print(report);
+                reports.put(mode, report);
+            } finally {
+                if (context != null) {
+                    context.close();
+                }
+            }
+        }
+        write(modes.size() == 1 ? reports.get(modes.get(0)) : reports, reportPath);
+    }
+
+    // Каждый режим получает своё приложение и свою базу, чтобы прогоны не влияли друг на друга
+    private static ConfigurableApplicationContext start(String mode) {
+        return SpringApplication.run(FilmorateApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "--filmorate.threads.virtual=" + VIRTUAL.equals(mode),
+                "--logging.level.root=WARN");
+    }
+
+    private static InputStream openCollection() throws IOException {
+        String path = System.getProperty("load.collection");
+        if (path != null && !path.isBlank()) {
+            return new FileInputStream(path);
+        }
+        InputStream json = LoadHarness.class.getResourceAsStream("/postman.json");
+        if (json == null) {
+            throw new IOException("postman.json не найден в classpath");
+        }
+
+        return json;
+    }
+
+    private void seed(List<PostmanCollection.Request> collection) {
+        for (PostmanCollection.Request request : collection) {
+            send(request);
+        }
+    }
+
+    private List<EndpointStats.Snapshot> run(Mix mix, int users, double rate, int warmupSeconds, int durationSeconds)
+            throws InterruptedException {
+        for (String endpoint : mix.endpoints()) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * users / rate) : 0;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            long firstStart = start + (interval > 0 ? ThreadLocalRandom.current().nextLong(interval) : 0);
+            Thread thread = new Thread(() -> virtualUser(mix, firstStart, interval, measureFrom, end), "load-user-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<EndpointStats.Snapshot> report = new ArrayList<>();
+        for (EndpointStats endpointStats : stats.values()) {
+            report.add(endpointStats.snapshot(durationSeconds));
+        }
+
+        return report;
+    }
+
+    private void virtualUser(Mix mix, long firstStart, long interval, long measureFrom, long end) {
+        long scheduled = firstStart;
+        while (true) {
+            long now = System.nanoTime();
+            if (interval > 0 && scheduled > now) {
+                if (scheduled >= end) {
+                    return;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(scheduled - now);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            long sentAt = interval > 0 ? scheduled : System.nanoTime();
+            if (sentAt >= end) {
+                return;
+            }
+            PostmanCollection.Request request = mix.next();
+            int status = send(request);
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentAt);
+            if (sentAt >= measureFrom) {
+                stats.get(request.endpoint).record(latencyMicros, status);
+            }
+            scheduled += interval;
+        }
+    }
+
+    private int send(PostmanCollection.Request request) {
+        HttpRequest.BodyPublisher body = request.body.isEmpty()
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(request.body);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + request.path))
+                .timeout(Duration.ofSeconds(30))
+                .method(request.method, body);
+        request.headers.forEach(builder::header);
+        try {
+            return client.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException exception) {
+            return 0;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    private static void print(List<EndpointStats.Snapshot> report) {
+        System.out.printf("%n%-45s %9s %7s %7s %10s %10s %10s %10s %10s%n",
+                "Эндпоинт", "Запросов", "4xx", "Ошибок", "Запросов/с", "p50, мс", "p99, мс", "p999, мс", "max, мс");
+        for (EndpointStats.Snapshot snapshot : report) {
+            System.out.printf("%-45s %9d %7d %7d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    snapshot.endpoint, snapshot.requests, snapshot.clientErrors, snapshot.serverErrors,
+                    snapshot.throughput, snapshot.p50Micros / 1000.0, snapshot.p99Micros / 1000.0,
+                    snapshot.p999Micros / 1000.0, snapshot.maxMicros / 1000.0);
+        }
+    }
+
+    private static void write(Object report, String path) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        System.out.printf("Отчёт сохранён в %s%n", file.getPath());
+    }
+
+    /**
+     * Взвешенный случайный выбор запроса: сначала эндпоинт по весу, затем любой его запрос из коллекции.
+     */
+    static class Mix {
+
+        private final List<String> endpoints = new ArrayList<>();
+        private final List<List<PostmanCollection.Request>> requests = new ArrayList<>();
+        private final double[] cumulativeWeights;
+
+        private Mix(Map<String, Double> weights, Map<String, List<PostmanCollection.Request>> byEndpoint) {
+            cumulativeWeights = new double[weights.size()];
+            double total = 0;
+            for (Map.Entry<String, Double> weight : weights.entrySet()) {
+                total += weight.getValue();
+                cumulativeWeights[endpoints.size()] = total;
+                endpoints.add(weight.getKey());
+                requests.add(byEndpoint.get(weight.getKey()));
+            }
+        }
+
+        static Mix of(List<PostmanCollection.Request> collection, String spec) {
+            Map<String, List<PostmanCollection.Request>> byEndpoint = new LinkedHashMap<>();
+            for (PostmanCollection.Request request : collection) {
+                byEndpoint.computeIfAbsent(request.endpoint, key -> new ArrayList<>()).add(request);
+            }
+            Map<String, Double> weights = new LinkedHashMap<>();
+            if (spec == null || spec.isBlank()) {
+                byEndpoint.keySet().stream()
+                        .filter(endpoint -> endpoint.startsWith("GET "))
+                        .forEach(endpoint -> weights.put(endpoint, 1.0));
+            } else {
+                for (String part : spec.split(";")) {
+                    int separator = part.lastIndexOf('=');
+                    String endpoint = part.substring(0, separator).trim();
+                    if (!byEndpoint.containsKey(endpoint)) {
+                        throw new IllegalArgumentException("В коллекции нет эндпоинта " + endpoint);
+                    }
+                    weights.put(endpoint, Double.parseDouble(part.substring(separator + 1).trim()));
+                }
+            }
+            if (weights.isEmpty()) {
+                throw new IllegalArgumentException("Смесь запросов пуста");
+            }
+
+            return new Mix(weights, byEndpoint);
+        }
+
+        static Set<String> endpoints(List<PostmanCollection.Request> collection) {
+            Set<String> endpoints = new TreeSet<>();
+            collection.forEach(request -> endpoints.add(request.endpoint));
+
+            return endpoints;
+        }
+
+        List<String> endpoints() {
+            return endpoints;
+        }
+
+        PostmanCollection.Request next() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double point = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+            int index = 0;
+            while (cumulativeWeights[index] <= point) {
+                index++;
+            }
+            List<PostmanCollection.Request> candidates = requests.get(index);
+
+            return candidates.get(random.nextInt(candidates.size()));
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(", ", "[", "]");
+            for (int i = 0; i < endpoints.size(); i++) {
+                double previous = i == 0 ? 0 : cumulativeWeights[i - 1];
+                joiner.add(endpoints.get(i) + "=" + (cumulativeWeights[i] - previous));
+            }
+
+            return joiner.toString();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запросы Postman-коллекции в порядке следования, с подставленными path-переменными.
+ */
+class PostmanCollection {
+
+    static class Request {
+        final String name;
+        final String method;
+        // Шаблон для группировки статистики: GET /users/{id}/friends
+        final String endpoint;
+        final String path;
+        final Map<String, String> headers;
+        final String body;
+
+        Request(String name, String method, String endpoint, String path, Map<String, String> headers, String body) {
+            this.name = name;
+            this.method = method;
+            this.endpoint = endpoint;
+            this.path = path;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+
+    private PostmanCollection() {
+    }
+
+    static List<Request> load(InputStream json) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(json);
+        List<Request> requests = new ArrayList<>();
+        collect(root.path("item"), requests);
+
+        return requests;
+    }
+
+    private static void collect(JsonNode items, List<Request> requests) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collect(item.get("item"), requests);
+            } else {
+                requests.add(parse(item));
+            }
+        }
+    }
+
+    private static Request parse(JsonNode item) {
+        JsonNode request = item.get("request");
+        JsonNode url = request.get("url");
+
+        Map<String, String> variables = new LinkedHashMap<>();
+        for (JsonNode variable : url.path("variable")) {
+            variables.put(variable.get("key").asText(), variable.path("value").asText());
+        }
+        StringBuilder template = new StringBuilder();
+        StringBuilder path = new StringBuilder();
+        for (JsonNode segment : url.path("path")) {
+            String value = segment.asText();
+            template.append('/');
+            path.append('/');
+            if (value.startsWith(":")) {
+                String key = value.substring(1);
+                template.append('{').append(key).append('}');
+                path.append(variables.getOrDefault(key, ""));
+            } else {
+                template.append(value);
+                path.append(value);
+            }
+        }
+        String separator = "?";
+        for (JsonNode query : url.path("query")) {
+            if (query.path("disabled").asBoolean(false)) {
+                continue;
+            }
+            path.append(separator).append(query.get("key").asText()).append('=').append(query.path("value").asText());
+            separator = "&";
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (JsonNode header : request.path("header")) {
+            headers.put(header.get("key").asText(), header.path("value").asText());
+        }
+        String body = request.path("body").path("raw").asText("");
+        String method = request.get("method").asText();
+
+        return new Request(item.path("name").asText(), method, method + " " + template, path.toString(), headers, body);
+    }
+}
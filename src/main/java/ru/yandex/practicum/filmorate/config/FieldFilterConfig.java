@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Фильтр полей фильмов и пользователей для параметров fields и expand. Фильтр вешается через mix-in,
+ * поэтому модели от него не зависят. Если ответ не задаёт свой фильтр, пишутся все поля,
+ * так что выгрузки NDJSON и реактивные ответы не меняются.
+ */
+@Configuration
+public class FieldFilterConfig {
+
+    public static final String FIELD_FILTER = "fields";
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldFilterCustomizer() {
+        return builder -> builder
+                .mixIn(Film.class, FieldFilterMixIn.class)
+                .mixIn(User.class, FieldFilterMixIn.class)
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    @JsonFilter(FIELD_FILTER)
+    private interface FieldFilterMixIn {
+    }
+}
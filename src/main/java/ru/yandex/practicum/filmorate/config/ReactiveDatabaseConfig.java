@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Подключение R2DBC для реактивного чтения к той же базе H2, что и у JDBC (spring.datasource.*).
+ * ConnectionFactory намеренно не объявлен бином: при нём Spring Boot отключает автоконфигурацию JDBC DataSource,
+ * а блокирующая часть приложения работает через неё. По той же причине R2dbcAutoConfiguration исключена.
+ * <p>
+ * r2dbc-h2 - обёртка над блокирующим JDBC-драйвером H2: запрос выполняется в потоке, подписавшемся на результат,
+ * то есть в потоке запроса Tomcat. Поэтому сервисы подписываются на запросы в пуле {@link #reactiveDatabaseScheduler()},
+ * размер которого совпадает с пулом соединений.
+ * <p>
+ * Чтение с подгрузкой лайков, жанров и друзей идёт в транзакции {@link #reactiveReadTransaction()}: все запросы
+ * берут соединение курсора, а не второе из пула, иначе потоки, держащие курсоры, ждали бы друг друга.
+ * Менеджер транзакций бином не объявлен: второй TransactionManager сломал бы выбор менеджера для @Transactional.
+ */
+@Configuration
+@Profile("!memory")
+public class ReactiveDatabaseConfig {
+
+    private static final String H2_PREFIX = "jdbc:h2:";
+
+    private final ConnectionPool connectionPool;
+    private final Scheduler scheduler;
+
+    public ReactiveDatabaseConfig(@Value("${spring.datasource.url}") String url,
+                                  @Value("${spring.datasource.username:sa}") String username,
+                                  @Value("${spring.datasource.password:}") String password,
+                                  @Value("${filmorate.reactive.pool.max-size:10}") int maxSize) {
+        if (!url.startsWith(H2_PREFIX)) {
+            throw new IllegalStateException("Реактивное чтение поддерживает только H2, а spring.datasource.url: " + url);
+        }
+        H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+                .url(url.substring(H2_PREFIX.length()))
+                .username(username)
+                .password(password)
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(new H2ConnectionFactory(configuration))
+                .maxSize(maxSize)
+                .build());
+        this.scheduler = Schedulers.newBoundedElastic(maxSize, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE,
+                "r2dbc-h2");
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveReadTransaction() {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(true);
+
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionPool), definition);
+    }
+
+    @Bean
+    public Scheduler reactiveDatabaseScheduler() {
+        return scheduler;
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.dispose();
+        connectionPool.dispose();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Режим виртуальных потоков (filmorate.threads.virtual=true, нужна Java 21+). Каждый HTTP-запрос Tomcat
+ * обрабатывается в своём виртуальном потоке, поэтому контроллер и вызовы JdbcTemplate блокируют только его,
+ * а не поток из пула Tomcat. Асинхронные ответы (выгрузка NDJSON) тоже пишутся в виртуальных потоках.
+ * Число одновременных запросов к базе по-прежнему ограничивает пул соединений Hikari.
+ *
+ * <p>Приложение собирается под Java 11, поэтому виртуальные потоки создаются через reflection;
+ * на JVM без них приложение с этим режимом не запустится.
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.threads.virtual", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    private static final String THREAD_PREFIX = "http-virtual-";
+
+    private final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            protocolHandler.setExecutor(executor);
+            log.info("Запросы Tomcat обрабатываются в виртуальных потоках");
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+    }
+
+    // Tomcat не останавливает executor, заданный снаружи
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, THREAD_PREFIX, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (NoSuchMethodException | ClassNotFoundException exception) {
+            throw new IllegalStateException("Виртуальные потоки недоступны в Java "
+                    + Runtime.version().feature() + ", нужна Java 21+", exception);
+        } catch (IllegalAccessException | InvocationTargetException exception) {
+            throw new IllegalStateException("Не удалось создать executor виртуальных потоков", exception);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.exception.BadRequestException;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keyset-пагинация списков: тело ответа остаётся массивом,
+ * курсор следующей страницы передаётся в заголовке X-Next-Cursor.
+ */
+final class CursorPage {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String DEFAULT_LIMIT = "100";
+    static final int MAX_LIMIT = 1000;
+
+    private CursorPage() {
+    }
+
+    static void validate(int after, int limit) {
+        if (after < 0) {
+            throw new BadRequestException("HTTP ERROR 400: Курсор не может быть отрицательным");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("HTTP ERROR 400: Размер страницы должен быть от 1 до " + MAX_LIMIT);
+        }
+    }
+
+    static <T> ResponseEntity<List<T>> of(List<T> items, int limit, ToIntFunction<T> idGetter) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (items.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(idGetter.applyAsInt(items.get(items.size() - 1))));
+        }
+
+        return response.body(items);
+    }
+}
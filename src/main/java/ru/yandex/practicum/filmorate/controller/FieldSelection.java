@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ser.PropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import ru.yandex.practicum.filmorate.config.FieldFilterConfig;
+import ru.yandex.practicum.filmorate.exception.BadRequestException;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Выборочная отдача полей: fields=id,name,likeCount оставляет в ответе только перечисленные поля,
+ * expand=likes добавляет раскрываемое поле. Раскрываемое поле (лайки фильма, друзья пользователя)
+ * без явного запроса не пишется в ответ, а сервис его и не читает.
+ */
+final class FieldSelection {
+
+    private final Set<String> fields;
+    private final String expandable;
+    private final boolean expanded;
+
+    private FieldSelection(Set<String> fields, String expandable, boolean expanded) {
+        this.fields = fields;
+        this.expandable = expandable;
+        this.expanded = expanded;
+    }
+
+    static FieldSelection of(String fields, String expand, String expandable) {
+        Set<String> expandNames = split(expand);
+        for (String name : expandNames) {
+            if (!name.equals(expandable)) {
+                throw new BadRequestException("HTTP ERROR 400: Раскрыть можно только поле " + expandable);
+            }
+        }
+        Set<String> fieldNames = split(fields);
+        if (fieldNames.isEmpty()) {
+            return new FieldSelection(null, expandable, !expandNames.isEmpty());
+        }
+
+        return new FieldSelection(fieldNames, expandable, !expandNames.isEmpty() || fieldNames.contains(expandable));
+    }
+
+    // Нужно ли читать раскрываемое поле из хранилища
+    boolean isExpanded() {
+        return expanded;
+    }
+
+    MappingJacksonValue apply(Object body) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider().addFilter(FieldFilterConfig.FIELD_FILTER, filter()));
+
+        return value;
+    }
+
+    // Заголовки ответа, например X-Next-Cursor, сохраняются
+    ResponseEntity<MappingJacksonValue> apply(ResponseEntity<?> response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .body(apply(response.getBody()));
+    }
+
+    private PropertyFilter filter() {
+        if (fields != null) {
+            Set<String> kept = new HashSet<>(fields);
+            if (expanded) {
+                kept.add(expandable);
+            }
+            return SimpleBeanPropertyFilter.filterOutAllExcept(kept);
+        }
+
+        if (expanded) {
+            return SimpleBeanPropertyFilter.serializeAll();
+        }
+
+        return SimpleBeanPropertyFilter.serializeAllExcept(expandable);
+    }
+
+    private static Set<String> split(String names) {
+        if (names == null || names.isBlank()) {
+            return Set.of();
+        }
+
+        return Arrays.stream(names.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+    }
+}
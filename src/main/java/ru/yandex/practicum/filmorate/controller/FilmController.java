@@ -1,18 +1,25 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.BadRequestException;
 import ru.yandex.practicum.filmorate.exception.InternalException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeRequest;
+import ru.yandex.practicum.filmorate.model.LikeResult;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStats;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
 import javax.validation.Validator;
 import java.time.LocalDate;
-import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -23,13 +30,16 @@ public class FilmController {
 
     private final FilmService filmService;
     private final Validator validator;
+    private final ObjectMapper objectMapper;
 
     private static final LocalDate START_DATA = LocalDate.of(1895, 12, 28);
+    private static final String LIKES = "likes";
 
     @Autowired
-    public FilmController(FilmService filmService, Validator validator) {
+    public FilmController(FilmService filmService, Validator validator, ObjectMapper objectMapper) {
         this.filmService = filmService;
         this.validator = validator;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -52,18 +62,46 @@ public class FilmController {
     }
 
     @GetMapping
-    public List<Film> getAll() {
-        List<Film> films = filmService.getAll();
-        log.info("GET запрос по адресу '/films'");
+    public ResponseEntity<MappingJacksonValue> getAll(@RequestParam(defaultValue = "0") Integer after,
+                                                      @RequestParam(defaultValue = CursorPage.DEFAULT_LIMIT) Integer limit,
+                                                      @RequestParam(defaultValue = "false") boolean all,
+                                                      @RequestParam(required = false) String fields,
+                                                      @RequestParam(required = false) String expand) {
+        log.info("GET запрос по адресу '/films?after={}&limit={}&all={}&fields={}&expand={}'",
+                after, limit, all, fields, expand);
+        FieldSelection selection = FieldSelection.of(fields, expand, LIKES);
+        if (all) {
+            return selection.apply(ResponseEntity.ok(filmService.getAll(selection.isExpanded())));
+        }
+        CursorPage.validate(after, limit);
+
+        return selection.apply(CursorPage.of(filmService.getPage(after, limit, selection.isExpanded()),
+                limit, Film::getId));
+    }
+
+    @GetMapping(value = "/export", produces = NdjsonExport.NDJSON)
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.info("GET запрос по адресу '/films/export'");
+
+        return NdjsonExport.of(objectMapper, filmService::streamAll);
+    }
 
-        return films;
+    @GetMapping("/cache/stats")
+    public CacheStats getCacheStats() {
+        log.info("GET запрос по адресу '/films/cache/stats'");
+
+        return filmService.getCacheStats();
     }
 
     @GetMapping("/{id}")
-    public Film findById(@PathVariable Integer id) {
+    public MappingJacksonValue findById(@PathVariable Integer id,
+                                        @RequestParam(required = false) String fields,
+                                        @RequestParam(required = false) String expand) {
         log.info("GET запрос по адресу '/films/{}'", id);
 
-        return filmService.findById(id);
+        FieldSelection selection = FieldSelection.of(fields, expand, LIKES);
+
+        return selection.apply(filmService.findById(id, selection.isExpanded()));
     }
 
 
@@ -73,17 +111,32 @@ public class FilmController {
         filmService.addLike(filmId, userId);
     }
 
+    @PostMapping("/likes")
+    public List<LikeResult> addLikes(@RequestBody List<LikeRequest> likes) {
+        log.info("POST запрос по адресу '/films/likes', лайков в пачке: {}", likes.size());
+
+        return filmService.addLikes(likes);
+    }
+
     @DeleteMapping("/{filmId}/like/{userId}")
     public void removeLike(@PathVariable Integer filmId, @PathVariable Integer userId) {
         log.info("Удален лайк у фильма '{}' от '{}'", filmId, userId);
         filmService.removeLike(filmId, userId);
     }
 
+    // При совпадении If-None-Match с версией фильмов ответ 304 отдаётся без чтения хранилища
     @GetMapping({"/popular"})
-    public Collection<Film> getPopularFilms(@RequestParam(defaultValue = "10") Integer count) {
+    public MappingJacksonValue getPopularFilms(@RequestParam(defaultValue = "10") Integer count,
+                                               @RequestParam(required = false) String fields,
+                                               @RequestParam(required = false) String expand,
+                                               WebRequest request) {
         log.info("GET запрос по адресу '/films/popular?count={}'", count);
+        FieldSelection selection = FieldSelection.of(fields, expand, LIKES);
+        if (request.checkNotModified(filmService.getVersionTag())) {
+            return null;
+        }
 
-        return filmService.getPopularFilms(count);
+        return selection.apply(filmService.getPopularFilms(count, selection.isExpanded()));
     }
 
     public void validateReleaseDate(Film film, String text) {
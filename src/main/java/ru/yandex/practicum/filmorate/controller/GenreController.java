@@ -6,6 +6,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
@@ -20,9 +21,13 @@ public class GenreController {
 
     private final GenreService genreService;
 
+    // Справочник меняется редко: при совпадении If-None-Match ответ 304 без чтения хранилища
     @GetMapping
-    public Collection<Genre> findAll() {
+    public Collection<Genre> findAll(WebRequest request) {
         log.info("GET запрос по адресу '/genres'");
+        if (request.checkNotModified(genreService.getVersionTag())) {
+            return null;
+        }
 
         return genreService.findAll();
     }
@@ -6,6 +6,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
@@ -20,9 +21,13 @@ public class MpaController {
 
     private final MpaService mpaService;
 
+    // Справочник меняется редко: при совпадении If-None-Match ответ 304 без чтения хранилища
     @GetMapping
-    public List<Mpa> findAll() {
+    public List<Mpa> findAll(WebRequest request) {
         log.info("GET запрос по адресу: '/mpa'");
+        if (request.checkNotModified(mpaService.getVersionTag())) {
+            return null;
+        }
 
         return mpaService.findAll();
     }
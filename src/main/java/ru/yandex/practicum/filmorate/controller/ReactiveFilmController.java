@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ReactiveFilmService;
+
+/**
+ * Неблокирующее чтение фильмов поверх R2DBC. С Accept: application/x-ndjson фильмы пишутся в ответ по одному
+ * по мере чтения из базы, и следующая строка запрашивается только после записи предыдущей;
+ * иначе ответ собирается в обычный JSON-массив.
+ */
+@RestController
+@Profile("!memory")
+@RequiredArgsConstructor
+@RequestMapping("/reactive/films")
+@Slf4j
+public class ReactiveFilmController {
+
+    private final ReactiveFilmService filmService;
+
+    @GetMapping
+    public Flux<Film> getAll(@RequestParam(defaultValue = "0") Integer after,
+                             @RequestParam(defaultValue = CursorPage.DEFAULT_LIMIT) Integer limit,
+                             @RequestParam(defaultValue = "false") boolean all) {
+        log.info("GET запрос по адресу '/reactive/films?after={}&limit={}&all={}'", after, limit, all);
+        if (all) {
+            return filmService.getAll();
+        }
+        CursorPage.validate(after, limit);
+
+        return filmService.getPage(after, limit);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Film> findById(@PathVariable Integer id) {
+        log.info("GET запрос по адресу '/reactive/films/{}'", id);
+
+        return filmService.findById(id);
+    }
+
+    @GetMapping("/popular")
+    public Flux<Film> getPopularFilms(@RequestParam(defaultValue = "10") Integer count) {
+        log.info("GET запрос по адресу '/reactive/films/popular?count={}'", count);
+
+        return filmService.getPopularFilms(count);
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ReactiveUserService;
+
+@RestController
+@Profile("!memory")
+@RequiredArgsConstructor
+@RequestMapping("/reactive/users")
+@Slf4j
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    @GetMapping("/{id}/friends")
+    public Flux<User> findFriends(@PathVariable Integer id) {
+        log.info("GET запрос по адресу: /reactive/users/{}/friends", id);
+
+        return userService.getUserFriends(id);
+    }
+}
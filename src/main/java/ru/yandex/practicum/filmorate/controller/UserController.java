@@ -1,21 +1,27 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.BadRequestException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import javax.validation.Valid;
-import java.util.Collection;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/users")
 @Slf4j
 public class UserController {
+    private static final String FRIENDS = "friends";
+
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public User create(@RequestBody User user) {
@@ -35,18 +41,40 @@ public class UserController {
     }
 
     @GetMapping
-    public Collection<User> findAll() {
-        log.info("GET запрос по адресу: /users");
+    public ResponseEntity<MappingJacksonValue> findAll(@RequestParam(defaultValue = "0") Integer after,
+                                                       @RequestParam(defaultValue = CursorPage.DEFAULT_LIMIT) Integer limit,
+                                                       @RequestParam(defaultValue = "false") boolean all,
+                                                       @RequestParam(required = false) String fields,
+                                                       @RequestParam(required = false) String expand) {
+        log.info("GET запрос по адресу: /users?after={}&limit={}&all={}&fields={}&expand={}",
+                after, limit, all, fields, expand);
+        FieldSelection selection = FieldSelection.of(fields, expand, FRIENDS);
+        if (all) {
+            return selection.apply(ResponseEntity.ok(userService.findAll(selection.isExpanded())));
+        }
+        CursorPage.validate(after, limit);
+
+        return selection.apply(CursorPage.of(userService.findPage(after, limit, selection.isExpanded()),
+                limit, User::getId));
+    }
+
+    @GetMapping(value = "/export", produces = NdjsonExport.NDJSON)
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.info("GET запрос по адресу: /users/export");
 
-        return userService.findAll();
+        return NdjsonExport.of(objectMapper, userService::streamAll);
     }
 
     @GetMapping("/{id}")
-    public User findById(@PathVariable String id) {
+    public MappingJacksonValue findById(@PathVariable String id,
+                                        @RequestParam(required = false) String fields,
+                                        @RequestParam(required = false) String expand) {
         log.info("GET запрос по адресу: /users/{}", id);
         log.info("Пользователь id: '{}'", id);
 
-        return userService.getUserById(id);
+        FieldSelection selection = FieldSelection.of(fields, expand, FRIENDS);
+
+        return selection.apply(userService.getUserById(id, selection.isExpanded()));
     }
 
     @DeleteMapping("/{id}")
@@ -68,17 +96,23 @@ public class UserController {
 
 
     @GetMapping("/{id}/friends")
-    public Collection<User> findFriends(@PathVariable Integer id) {
+    public MappingJacksonValue findFriends(@PathVariable Integer id,
+                                           @RequestParam(required = false) String fields,
+                                           @RequestParam(required = false) String expand) {
         log.info("GET запрос по адресу: /users/{}/friends", id);
+        FieldSelection selection = FieldSelection.of(fields, expand, FRIENDS);
 
-        return userService.getUserFriends(String.valueOf(id));
+        return selection.apply(userService.getUserFriends(String.valueOf(id), selection.isExpanded()));
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
-    public Collection<User> getCommonFriendsList(@PathVariable String id, @PathVariable String otherId) {
+    public MappingJacksonValue getCommonFriendsList(@PathVariable String id, @PathVariable String otherId,
+                                                    @RequestParam(required = false) String fields,
+                                                    @RequestParam(required = false) String expand) {
         log.info("GET запрос по адресу: '/users/{}/friends/common/{}'", id, otherId);
+        FieldSelection selection = FieldSelection.of(fields, expand, FRIENDS);
 
-        return userService.getCommonFriendsList(id, otherId);
+        return selection.apply(userService.getCommonFriendsList(id, otherId, selection.isExpanded()));
     }
 
     void throwIfUserPrintWrongInfo(User user) {
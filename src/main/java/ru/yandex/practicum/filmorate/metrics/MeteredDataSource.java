@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * DataSource, который замеряет каждый выполненный SQL-запрос таймером filmorate.sql с тегами dao и method.
+ * Обёртка стоит на уровне соединения, поэтому видит и JdbcTemplate, и запросы через PreparedStatementCreator,
+ * а транзакции Spring работают с тем же DataSource, что и DAO.
+ * Метод DAO - самый внешний вызов из storage/dao в стеке, то есть метод, который вызвал сервис.
+ * Каждый запрос также учитывается в {@link SqlStatementCounter} текущего потока.
+ */
+public class MeteredDataSource extends DelegatingDataSource {
+
+    static final String SQL_TIMER = "filmorate.sql";
+    private static final String DAO_PACKAGE = "ru.yandex.practicum.filmorate.storage.dao.";
+    private static final String NONE = "none";
+
+    private final Supplier<MeterRegistry> registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final StackWalker stackWalker = StackWalker.getInstance();
+
+    public MeteredDataSource(DataSource dataSource, Supplier<MeterRegistry> registry) {
+        super(dataSource);
+        this.registry = registry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement) {
+                        return wrapStatement((Statement) result, method.getReturnType());
+                    }
+                    return result;
+                });
+    }
+
+    private Object wrapStatement(Statement statement, Class<?> type) {
+        Class<?> statementType = type.isInterface() && Statement.class.isAssignableFrom(type) ? type : Statement.class;
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            SqlStatementCounter.increment();
+            Timer.Sample sample = Timer.start();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                sample.stop(timer(findDaoMethod()));
+            }
+        };
+
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{statementType}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException exception) {
+            throw exception.getTargetException();
+        }
+    }
+
+    private Timer timer(String caller) {
+        return timers.computeIfAbsent(caller, key -> {
+            int dot = key.lastIndexOf('.');
+            return Timer.builder(SQL_TIMER)
+                    .description("Время выполнения SQL-запросов по методам DAO")
+                    .tag("dao", dot < 0 ? NONE : key.substring(0, dot))
+                    .tag("method", dot < 0 ? key : key.substring(dot + 1))
+                    .publishPercentileHistogram()
+                    .register(registry.get());
+        });
+    }
+
+    // Прокси CGLIB и лямбды пропускаются: нужен сам метод DAO
+    private String findDaoMethod() {
+        List<StackWalker.StackFrame> frames = stackWalker.walk(stream -> stream
+                .filter(frame -> frame.getClassName().startsWith(DAO_PACKAGE))
+                .filter(frame -> !frame.getClassName().contains("$$"))
+                .filter(frame -> !frame.getMethodName().startsWith("lambda$"))
+                .collect(Collectors.toList()));
+        if (frames.isEmpty()) {
+            return NONE;
+        }
+        StackWalker.StackFrame outermost = frames.get(frames.size() - 1);
+
+        return outermost.getClassName().substring(DAO_PACKAGE.length()) + "." + outermost.getMethodName();
+    }
+}
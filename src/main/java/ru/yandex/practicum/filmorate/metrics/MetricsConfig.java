@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Метрики приложения: таймеры SQL по методам DAO ({@link MeteredDataSource}) и тег handler у http.server.requests,
+ * чтобы задержки были видны по каждому методу контроллеров. Гистограммы и перцентили
+ * задаются в application.properties, метрики пула соединений Hikari Spring Boot регистрирует сам.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // DataSource оборачивается целиком, чтобы JdbcTemplate и менеджер транзакций делили одни соединения
+    @Bean
+    public static BeanPostProcessor meteredDataSourcePostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof MeteredDataSource)) {
+                    return new MeteredDataSource((DataSource) bean, registry::getObject);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public WebMvcTagsContributor handlerTagContributor() {
+        return new WebMvcTagsContributor() {
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response,
+                                         Object handler, Throwable exception) {
+                if (handler instanceof HandlerMethod) {
+                    HandlerMethod method = (HandlerMethod) handler;
+                    return List.of(Tag.of("handler",
+                            method.getBeanType().getSimpleName() + "." + method.getMethod().getName()));
+                }
+                return List.of(Tag.of("handler", "none"));
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return List.of();
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Считает SQL-запросы каждого HTTP-запроса, чтобы ловить N+1. Число кладётся в атрибут запроса {@link #COUNT_ATTRIBUTE},
+ * при превышении filmorate.sql.warn-threshold пишется предупреждение, а с filmorate.sql.count-header.enabled
+ * (профиль dev) число уходит клиенту в заголовке {@link #COUNT_HEADER}.
+ */
+@Component
+@Slf4j
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String COUNT_HEADER = "X-SQL-Count";
+    public static final String COUNT_ATTRIBUTE = SqlStatementCountFilter.class.getName() + ".COUNT";
+
+    private final int warnThreshold;
+    private final boolean headerEnabled;
+
+    public SqlStatementCountFilter(@Value("${filmorate.sql.warn-threshold:20}") int warnThreshold,
+                                   @Value("${filmorate.sql.count-header.enabled:false}") boolean headerEnabled) {
+        this.warnThreshold = warnThreshold;
+        this.headerEnabled = headerEnabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int count;
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            chain.doFilter(request, headerEnabled ? new CountHeaderResponse(response, scope) : response);
+            count = scope.getCount();
+        }
+        request.setAttribute(COUNT_ATTRIBUTE, count);
+        if (headerEnabled && !response.isCommitted()) {
+            response.setHeader(COUNT_HEADER, String.valueOf(count));
+        }
+        if (count > warnThreshold) {
+            log.warn("{} '{}' выполнил {} SQL-запросов при пороге {}: возможен N+1",
+                    request.getMethod(), request.getRequestURI(), count, warnThreshold);
+        }
+    }
+
+    // Тело пишется до выхода из фильтра, поэтому заголовок ставится перед первой записью в ответ
+    private static class CountHeaderResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatementCounter.Scope scope;
+
+        CountHeaderResponse(HttpServletResponse response, SqlStatementCounter.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            setCountHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            setCountHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            setCountHeader();
+            super.flushBuffer();
+        }
+
+        private void setCountHeader() {
+            if (!isCommitted()) {
+                setHeader(COUNT_HEADER, String.valueOf(scope.getCount()));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+/**
+ * Счётчик SQL-запросов текущего потока. {@link MeteredDataSource} увеличивает его на каждый выполненный запрос,
+ * если в потоке открыт {@link Scope}. Области вкладываются: запросы внутренней области учитываются и во внешней,
+ * поэтому тест может считать запросы вокруг MockMvc, а фильтр - внутри него.
+ * Запросы из других потоков (асинхронная выгрузка, отложенная запись лайков) сюда не попадают.
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+
+        return scope;
+    }
+
+    // Число запросов, выполненных в потоке с открытия scope до его закрытия
+    public static int count(Runnable action) {
+        try (Scope scope = open()) {
+            action.run();
+            return scope.getCount();
+        }
+    }
+
+    static void increment() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.count++;
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private int count = 0;
+        private boolean closed = false;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (parent != null) {
+                parent.count += count;
+            }
+            if (CURRENT.get() == this) {
+                if (parent == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(parent);
+                }
+            }
+        }
+    }
+}
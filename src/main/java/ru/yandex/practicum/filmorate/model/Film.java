@@ -1,6 +1,6 @@
 package ru.yandex.practicum.filmorate.model;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -11,12 +11,12 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 public class Film {
 
@@ -35,14 +35,39 @@ public class Film {
     private Mpa mpa;
 
     private List<Genre> genres = new ArrayList<>();
-    private List<Integer> likes = new ArrayList<>();
+    // null - лайки не загружались, число лайков тогда есть только в likeCount
+    private IdSet likes = new IdSet();
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int likeCount;
 
-    public boolean addLike(Integer id) {
-        return likes.add(id);
+    public Film(int id, String name, String description, LocalDate releaseDate, Integer duration, int rate, Mpa mpa,
+                List<Genre> genres, Collection<Integer> likes) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.releaseDate = releaseDate;
+        this.duration = duration;
+        this.rate = rate;
+        this.mpa = mpa;
+        this.genres = genres;
+        this.likes = likes == null ? null : IdSet.from(likes);
+        this.likeCount = likes == null ? 0 : likes.size();
     }
 
-    public boolean removeLike(Integer id) {
-        return likes.remove(id);
+    public boolean addLike(int id) {
+        boolean added = likes.add(id);
+        if (added) {
+            likeCount++;
+        }
+        return added;
+    }
+
+    public boolean removeLike(int id) {
+        boolean removed = likes.remove(id);
+        if (removed) {
+            likeCount--;
+        }
+        return removed;
     }
 
     @Override
@@ -1,17 +1,20 @@
 package ru.yandex.practicum.filmorate.model;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
 
-@Getter
-@Setter
-@AllArgsConstructor
-@NoArgsConstructor
+// Экземпляры из справочника общие для всех фильмов, поэтому жанр не меняется после создания
+@Value
 public class Genre {
 
-    private int id;
+    int id;
 
-    private String name;
-}
\ No newline at end of file
+    String name;
+
+    @JsonCreator
+    public Genre(@JsonProperty("id") int id, @JsonProperty("name") String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
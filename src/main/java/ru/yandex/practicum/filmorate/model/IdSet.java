@@ -0,0 +1,206 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Набор id (лайки фильма, друзья пользователя) в сжатом битмапе RoaringBitmap: id хранятся без упаковки в Integer,
+ * проверка, добавление и удаление не зависят от размера набора. Обход идёт по возрастанию id.
+ * В JSON набор пишется и читается массивом чисел, как прежний List&lt;Integer&gt;.
+ */
+@JsonSerialize(using = IdSet.Serializer.class)
+@JsonDeserialize(using = IdSet.Deserializer.class)
+public class IdSet extends AbstractSet<Integer> {
+
+    private final RoaringBitmap bitmap;
+
+    public IdSet() {
+        this(new RoaringBitmap());
+    }
+
+    private IdSet(RoaringBitmap bitmap) {
+        this.bitmap = bitmap;
+    }
+
+    public static IdSet of(int... ids) {
+        return new IdSet(RoaringBitmap.bitmapOf(ids));
+    }
+
+    // IdSet берётся как есть, любая другая коллекция копируется
+    public static IdSet from(Collection<Integer> ids) {
+        if (ids instanceof IdSet) {
+            return (IdSet) ids;
+        }
+        IdSet result = new IdSet();
+        for (Integer id : ids) {
+            result.add(id.intValue());
+        }
+
+        return result;
+    }
+
+    public boolean add(int id) {
+        return bitmap.checkedAdd(id);
+    }
+
+    @Override
+    public boolean add(Integer id) {
+        return add(id.intValue());
+    }
+
+    public boolean contains(int id) {
+        return bitmap.contains(id);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains(((Integer) o).intValue());
+    }
+
+    public boolean remove(int id) {
+        return bitmap.checkedRemove(id);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && remove(((Integer) o).intValue());
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> ids) {
+        boolean changed = false;
+        for (Object id : ids) {
+            changed |= remove(id);
+        }
+
+        return changed;
+    }
+
+    @Override
+    public int size() {
+        return bitmap.getCardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bitmap.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        bitmap.clear();
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        PeekableIntIterator ids = bitmap.getIntIterator();
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                if (!ids.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return ids.next();
+            }
+        };
+    }
+
+    public int[] toIntArray() {
+        return bitmap.toArray();
+    }
+
+    public IdSet copy() {
+        return new IdSet(bitmap.clone());
+    }
+
+    public IdSet and(IdSet other) {
+        return new IdSet(RoaringBitmap.and(bitmap, other.bitmap));
+    }
+
+    // Сжимает подряд идущие id в интервалы и отдаёт лишнюю ёмкость; имеет смысл после загрузки всего набора
+    public IdSet compact() {
+        bitmap.runOptimize();
+        bitmap.trim();
+
+        return this;
+    }
+
+    public long sizeInBytes() {
+        return bitmap.getLongSizeInBytes();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof IdSet) {
+            return bitmap.equals(((IdSet) o).bitmap);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    static class Serializer extends StdSerializer<IdSet> {
+
+        Serializer() {
+            super(IdSet.class);
+        }
+
+        @Override
+        public void serialize(IdSet value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartArray(value, value.size());
+            PeekableIntIterator ids = value.bitmap.getIntIterator();
+            while (ids.hasNext()) {
+                generator.writeNumber(ids.next());
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    static class Deserializer extends StdDeserializer<IdSet> {
+
+        Deserializer() {
+            super(IdSet.class);
+        }
+
+        @Override
+        public IdSet deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartArrayToken()) {
+                return (IdSet) context.handleUnexpectedToken(IdSet.class, parser);
+            }
+            IdSet ids = new IdSet();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.VALUE_NUMBER_INT) {
+                    return (IdSet) context.handleUnexpectedToken(IdSet.class, parser);
+                }
+                ids.add(parser.getIntValue());
+            }
+
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class LikeResult {
+
+    private Integer filmId;
+
+    private Integer userId;
+
+    private Status status;
+
+    public enum Status {
+        ADDED,
+        ALREADY_EXISTS,
+        FILM_NOT_FOUND,
+        USER_NOT_FOUND
+    }
+}
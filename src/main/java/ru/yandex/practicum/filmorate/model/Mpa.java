@@ -1,19 +1,25 @@
 package ru.yandex.practicum.filmorate.model;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
 
-@Getter
-@Setter
-@AllArgsConstructor
-@NoArgsConstructor
+// Неизменяемый: все фильмы ссылаются на общие экземпляры из справочника
+@Value
 public class Mpa {
 
-    private int id;
+    int id;
 
-    private String name;
+    String name;
 
-    private String description;
-}
\ No newline at end of file
+    String description;
+
+    @JsonCreator
+    public Mpa(@JsonProperty("id") int id,
+               @JsonProperty("name") String name,
+               @JsonProperty("description") String description) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+    }
+}
@@ -1,6 +1,5 @@
 package ru.yandex.practicum.filmorate.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -11,11 +10,10 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.PastOrPresent;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.Collection;
 
 @Getter
 @Setter
-@AllArgsConstructor()
 @NoArgsConstructor
 @Valid
 public class User {
@@ -34,13 +32,23 @@ public class User {
     @PastOrPresent
     private LocalDate birthday;
 
-    private List<Integer> friends;
+    // null - друзья не загружались
+    private IdSet friends;
 
-    public boolean addFriendship(Integer id) {
+    public User(int id, String email, String login, String name, LocalDate birthday, Collection<Integer> friends) {
+        this.id = id;
+        this.email = email;
+        this.login = login;
+        this.name = name;
+        this.birthday = birthday;
+        this.friends = friends == null ? null : IdSet.from(friends);
+    }
+
+    public boolean addFriendship(int id) {
         return friends.add(id);
     }
 
-    public boolean removeFriendship(Integer id) {
+    public boolean removeFriendship(int id) {
         return friends.remove(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счётчики версий данных по семействам ресурсов для ETag. Сервис поднимает версию после каждой записи,
+ * контроллер сверяет её с If-None-Match до обращения к хранилищу.
+ * В тег входит время запуска: после рестарта счётчики начинаются заново, и старые теги не должны совпасть.
+ */
+@Component
+public class DataVersions {
+
+    public enum Resource {
+        FILMS, GENRES, MPA
+    }
+
+    private final String instance = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Map<Resource, AtomicLong> versions = new EnumMap<>(Resource.class);
+
+    public DataVersions() {
+        for (Resource resource : Resource.values()) {
+            versions.put(resource, new AtomicLong());
+        }
+    }
+
+    // Версия поднимается после записи: тег, прочитанный до неё, уже не совпадёт с новыми данными
+    public void bump(Resource resource) {
+        versions.get(resource).incrementAndGet();
+    }
+
+    public String tag(Resource resource) {
+        return resource.name().toLowerCase() + "-" + instance + "-" + versions.get(resource).get();
+    }
+}
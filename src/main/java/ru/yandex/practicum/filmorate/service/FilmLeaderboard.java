@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * Рейтинг фильмов по числу лайков в памяти. Обновляется при каждом лайке,
+ * поэтому топ-N отдаётся без агрегации таблицы LIKES.
+ */
+@Component
+@Slf4j
+public class FilmLeaderboard {
+
+    private final FilmStorage filmStorage;
+
+    private final Map<Integer, Integer> likesByFilm = new HashMap<>();
+    private final NavigableSet<Integer> ranking = new TreeSet<>(Comparator
+            .comparingInt((Integer filmId) -> likesByFilm.get(filmId)).reversed()
+            .thenComparingInt(filmId -> filmId));
+
+    @Autowired
+    public FilmLeaderboard(@Qualifier("FilmStorageEngine") FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        ranking.clear();
+        likesByFilm.clear();
+        likesByFilm.putAll(filmStorage.findLikeCounts());
+        ranking.addAll(likesByFilm.keySet());
+        log.info("Рейтинг фильмов построен, фильмов: {}", likesByFilm.size());
+    }
+
+    public synchronized void addFilm(int filmId) {
+        if (!likesByFilm.containsKey(filmId)) {
+            likesByFilm.put(filmId, 0);
+            ranking.add(filmId);
+        }
+    }
+
+    public synchronized void removeFilm(int filmId) {
+        if (likesByFilm.containsKey(filmId)) {
+            ranking.remove(filmId);
+            likesByFilm.remove(filmId);
+        }
+    }
+
+    public synchronized void addLike(int filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public synchronized void removeLike(int filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    public synchronized List<Integer> getTop(int count) {
+        List<Integer> top = new ArrayList<>(Math.max(0, Math.min(count, ranking.size())));
+        Iterator<Integer> iterator = ranking.iterator();
+        while (top.size() < count && iterator.hasNext()) {
+            top.add(iterator.next());
+        }
+
+        return top;
+    }
+
+    public synchronized int getLikes(int filmId) {
+        return likesByFilm.getOrDefault(filmId, 0);
+    }
+
+    // Фильм убирается из TreeSet до изменения счётчика, иначе компаратор его не найдёт.
+    // Снятый лайк у фильма, которого нет в рейтинге (например, уже удалённого), его не возвращает
+    private void changeLikes(int filmId, int delta) {
+        Integer likes = likesByFilm.get(filmId);
+        if (likes == null && delta < 0) {
+            return;
+        }
+        if (likes == null) {
+            likes = 0;
+        } else {
+            ranking.remove(filmId);
+        }
+        likesByFilm.put(filmId, Math.max(0, likes + delta));
+        ranking.add(filmId);
+    }
+}
@@ -4,84 +4,237 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import ru.yandex.practicum.filmorate.exception.*;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeRequest;
+import ru.yandex.practicum.filmorate.model.LikeResult;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStats;
+import ru.yandex.practicum.filmorate.storage.cache.CachedFilmStorage;
 
-import java.util.Collection;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 public class FilmService {
 
+    private static final int MAX_BULK_LIKES = 10_000;
+
     private final FilmStorage filmStorage;
     private final GenreService genreService;
     private final UserService userService;
+    private final FilmLeaderboard leaderboard;
+    private final CachedFilmStorage filmCache;
+    private final LikeWriteBehindBuffer likeBuffer;
+    private final DataVersions versions;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public FilmService(@Qualifier("FilmDbStorage") FilmStorage filmStorage,
-                       GenreService genreService, @Autowired(required = false) UserService userService) {
+    public FilmService(@Qualifier("CachedFilmStorage") CachedFilmStorage filmStorage,
+                       GenreService genreService, @Autowired(required = false) UserService userService,
+                       FilmLeaderboard leaderboard, LikeWriteBehindBuffer likeBuffer, DataVersions versions,
+                       TransactionTemplate transactionTemplate) {
         this.filmStorage = filmStorage;
+        this.filmCache = filmStorage;
         this.genreService = genreService;
         this.userService = userService;
+        this.leaderboard = leaderboard;
+        this.likeBuffer = likeBuffer;
+        this.versions = versions;
+        this.transactionTemplate = transactionTemplate;
     }
 
+    // Жанры проверяются по справочнику до записи фильма: с неизвестным жанром в базе не остаётся ничего
     public Film create(Film film) {
+        genreService.checkGenresExist(film.getGenres());
         Film createdFilm = filmStorage.create(film);
-        if (createdFilm.getGenres() != null && !createdFilm.getGenres().isEmpty()) {
-            genreService.addFilmGenres(createdFilm.getId(), createdFilm.getGenres());
+        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
+            createdFilm.setGenres(genreService.updateFilmGenres(createdFilm.getId(), film.getGenres()));
+            filmCache.invalidate(createdFilm.getId());
         }
+        leaderboard.addFilm(createdFilm.getId());
+        versions.bump(DataVersions.Resource.FILMS);
 
         return createdFilm;
     }
 
     public Film update(Film film) {
+        genreService.checkGenresExist(film.getGenres());
         Film updatedFilm = filmStorage.update(film);
-        genreService.deleteFilmGenres(updatedFilm.getId());
-        if (updatedFilm.getGenres() != null && !updatedFilm.getGenres().isEmpty()) {
-            genreService.addFilmGenres(updatedFilm.getId(), updatedFilm.getGenres());
-        }
+        List<Genre> genres = film.getGenres() == null ? List.of() : film.getGenres();
+        updatedFilm.setGenres(genreService.updateFilmGenres(updatedFilm.getId(), genres));
+        // Жанры пишутся мимо FilmStorage, поэтому кэш сбрасывается уже после них
+        filmCache.invalidate(updatedFilm.getId());
+        versions.bump(DataVersions.Resource.FILMS);
 
         return updatedFilm;
     }
 
-    public List<Film> getAll() {
-        final List<Film> films = filmStorage.findAll();
+    public List<Film> getAll(boolean withLikes) {
+        final List<Film> films = filmStorage.findAll(withLikes);
 
         return films;
     }
 
+    public void streamAll(Consumer<Film> consumer) {
+        filmStorage.streamAll(consumer);
+    }
+
+    public List<Film> getPage(int afterId, int limit, boolean withLikes) {
+        return filmStorage.findPage(afterId, limit, withLikes);
+    }
+
     public void addLike(Integer filmId, Integer userId) {
         Optional<Film> film = getFilmStored(filmId);
-        User user = userService.getUserById(userId.toString());
-        filmStorage.addLike(film.get().getId(), user.getId());
+        int existingUserId = userService.getExistingUserId(userId.toString());
+        boolean changed = likeBuffer.isEnabled()
+                ? likeBuffer.offer(film.get(), existingUserId, true)
+                : filmStorage.addLike(film.get().getId(), existingUserId);
+        if (changed) {
+            leaderboard.addLike(film.get().getId());
+            versions.bump(DataVersions.Resource.FILMS);
+        }
         log.info("Фильм с id: '{}' получил лайк", filmId);
     }
 
+    // Пачка лайков: id проверяются двумя запросами на всю пачку, запись - одним batchUpdate
+    public List<LikeResult> addLikes(List<LikeRequest> likes) {
+        if (likes.size() > MAX_BULK_LIKES) {
+            throw new BadRequestException("HTTP ERROR 400: В одном запросе не больше " + MAX_BULK_LIKES + " лайков");
+        }
+        // Отложенные одиночные лайки пишутся раньше пачки, чтобы статусы ADDED/ALREADY_EXISTS были точными.
+        // Буфер сбрасывается до транзакции: его пачки пишутся своими соединениями и не ждут её конца
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.flush();
+        }
+
+        return transactionTemplate.execute(status -> writeLikes(likes));
+    }
+
+    private List<LikeResult> writeLikes(List<LikeRequest> likes) {
+        Set<Integer> filmIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (LikeRequest like : likes) {
+            if (like.getFilmId() != null) {
+                filmIds.add(like.getFilmId());
+            }
+            if (like.getUserId() != null) {
+                userIds.add(like.getUserId());
+            }
+        }
+        Set<Integer> existingFilms = filmStorage.findExistingIds(filmIds);
+        Set<Integer> existingUsers = userService.findExistingIds(userIds);
+
+        List<LikeResult> results = new ArrayList<>(likes.size());
+        List<LikeRequest> valid = new ArrayList<>();
+        List<LikeResult> validResults = new ArrayList<>();
+        for (LikeRequest like : likes) {
+            LikeResult result = new LikeResult(like.getFilmId(), like.getUserId(), null);
+            if (!existingFilms.contains(like.getFilmId())) {
+                result.setStatus(LikeResult.Status.FILM_NOT_FOUND);
+            } else if (!existingUsers.contains(like.getUserId())) {
+                result.setStatus(LikeResult.Status.USER_NOT_FOUND);
+            } else {
+                valid.add(like);
+                validResults.add(result);
+            }
+            results.add(result);
+        }
+
+        List<Boolean> added = filmStorage.addLikes(valid);
+        List<Integer> likedFilms = new ArrayList<>();
+        for (int i = 0; i < valid.size(); i++) {
+            if (added.get(i)) {
+                validResults.get(i).setStatus(LikeResult.Status.ADDED);
+                likedFilms.add(valid.get(i).getFilmId());
+            } else {
+                validResults.get(i).setStatus(LikeResult.Status.ALREADY_EXISTS);
+            }
+        }
+        if (!likedFilms.isEmpty()) {
+            // CachedFilmStorage сбрасывает фильмы ещё внутри транзакции, и промах в этом окне мог бы
+            // положить в кэш фильм без новых лайков, поэтому после фиксации они сбрасываются ещё раз
+            afterCommit(() -> {
+                likedFilms.forEach(filmCache::invalidate);
+                likedFilms.forEach(leaderboard::addLike);
+                versions.bump(DataVersions.Resource.FILMS);
+            });
+        }
+        log.info("Пачка лайков обработана: {} из {} добавлено", added.stream().filter(b -> b).count(), likes.size());
+
+        return results;
+    }
+
     public void removeLike(Integer filmId, Integer userId) {
         Optional<Film> film = getFilmStored(filmId);
-        User user = userService.getUserById(userId.toString());
-        filmStorage.removeLike(film.get().getId(), user.getId());
+        int existingUserId = userService.getExistingUserId(userId.toString());
+        boolean changed = likeBuffer.isEnabled()
+                ? likeBuffer.offer(film.get(), existingUserId, false)
+                : filmStorage.removeLike(film.get().getId(), existingUserId);
+        if (changed) {
+            leaderboard.removeLike(film.get().getId());
+            versions.bump(DataVersions.Resource.FILMS);
+        }
         log.info("У Фильма id: '{}' удалён лайк", filmId);
     }
 
     public Collection<Film> getPopularFilms(Integer count) {
+        return getPopularFilms(count, true);
+    }
+
+    // Без withLikes LIKES не читается, likeCount берётся из колонки фильма
+    public Collection<Film> getPopularFilms(Integer count, boolean withLikes) {
         log.info("Список популярных фильмов отправлен");
 
-        return filmStorage.findPopularFilms(count);
+        List<Film> films = filmStorage.findByIds(leaderboard.getTop(count), withLikes);
+        if (likeBuffer.isEnabled()) {
+            films.replaceAll(likeBuffer::applyPending);
+        }
+
+        return films;
+    }
+
+    // Тег меняется с любой записью по фильмам и лайкам, так как от них зависит список популярных
+    public String getVersionTag() {
+        return versions.tag(DataVersions.Resource.FILMS);
+    }
+
+    public CacheStats getCacheStats() {
+        return filmCache.getStats();
     }
 
     public Film findById(Integer id) {
-        return filmStorage.findById(id)
+        return findById(id, true);
+    }
+
+    public Film findById(Integer id, boolean withLikes) {
+        return filmStorage.findById(id, withLikes)
+                .map(likeBuffer::applyPending)
                 .orElseThrow(() ->
                         new NotFoundException(String.format("HTTP ERROR 404: Фильм с id: '%d' не найден", id)));
     }
 
+    // Рейтинг и версия меняются только после фиксации: при откате в них не остаётся лайков, которых нет в базе
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     private Integer parseId(final String supposedInt) {
         try {
             return Integer.valueOf(supposedInt);
@@ -5,14 +5,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachedFilmStorage;
 
 import java.util.Collection;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class GenreService {
 
     private final GenreStorage genreStorage;
+    private final DataVersions versions;
+    private final CachedFilmStorage filmCache;
 
     public Collection<Genre> findAll() {
         return genreStorage.findAll();
@@ -28,12 +32,49 @@ public class GenreService {
         return genreStorage.findById(id);
     }
 
+    // Проверка по справочнику в памяти, без запросов к базе; неизвестный жанр - NotFoundException
+    public void checkGenresExist(Collection<Genre> genres) {
+        if (genres == null) {
+            return;
+        }
+        for (Genre genre : genres) {
+            genreStorage.findById(genre.getId());
+        }
+    }
+
+    // Жанры фильма входят в ответы по фильмам, поэтому их запись поднимает версию фильмов
+
     public boolean deleteFilmGenres(int filmId) {
-        return genreStorage.deleteFilmGenres(filmId);
+        boolean deleted = genreStorage.deleteFilmGenres(filmId);
+        versions.bump(DataVersions.Resource.FILMS);
+
+        return deleted;
     }
 
     public boolean addFilmGenres(int filmId, Collection<Genre> genres) {
-        return genreStorage.addFilmGenres(filmId, genres);
+        boolean added = genreStorage.addFilmGenres(filmId, genres);
+        versions.bump(DataVersions.Resource.FILMS);
+
+        return added;
+    }
+
+    public List<Genre> updateFilmGenres(int filmId, Collection<Genre> genres) {
+        List<Genre> updated = genreStorage.updateFilmGenres(filmId, genres);
+        versions.bump(DataVersions.Resource.FILMS);
+
+        return updated;
+    }
+
+    public void reload() {
+        genreStorage.reload();
+        // Фильмы в кэше держат жанры из старого справочника
+        filmCache.clear();
+        versions.bump(DataVersions.Resource.GENRES);
+        versions.bump(DataVersions.Resource.FILMS);
+    }
+
+    public String getVersionTag() {
+        return versions.tag(DataVersions.Resource.GENRES);
     }
 
     private Integer parseId(final String strId) {
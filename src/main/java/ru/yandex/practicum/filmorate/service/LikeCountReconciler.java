@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+/**
+ * Периодически сверяет FILMS.LIKE_COUNT с таблицей LIKES и исправляет расхождения,
+ * например после ручных правок LIKES в базе. Если что-то исправлено, рейтинг строится заново.
+ */
+@Component
+@Slf4j
+public class LikeCountReconciler {
+
+    private final FilmStorage filmStorage;
+    private final FilmLeaderboard leaderboard;
+    private final DataVersions versions;
+
+    @Autowired
+    public LikeCountReconciler(@Qualifier("FilmStorageEngine") FilmStorage filmStorage, FilmLeaderboard leaderboard,
+                               DataVersions versions) {
+        this.filmStorage = filmStorage;
+        this.leaderboard = leaderboard;
+        this.versions = versions;
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.likes.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${filmorate.likes.reconcile-interval-ms:3600000}")
+    public int reconcile() {
+        int repaired = filmStorage.reconcileLikeCounts();
+        if (repaired > 0) {
+            log.warn("Исправлены счётчики лайков у {} фильмов", repaired);
+            leaderboard.rebuild();
+            versions.bump(DataVersions.Resource.FILMS);
+        } else {
+            log.debug("Счётчики лайков совпадают с таблицей LIKES");
+        }
+
+        return repaired;
+    }
+}
@@ -0,0 +1,323 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.model.LikeRequest;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Отложенная запись лайков. События лайк/дизлайк копятся в ограниченном буфере,
+ * для каждой пары (фильм, пользователь) хранится только последнее, и фоновый поток
+ * пишет их в LIKES пачками. При заполненном буфере вызывающий поток ждёт освобождения места.
+ * Пока событие не записано, оно учитывается при чтении фильмов через {@link #applyPending(Film)}.
+ */
+@Component
+@Slf4j
+public class LikeWriteBehindBuffer {
+
+    private final FilmStorage filmStorage;
+    private final FilmLeaderboard leaderboard;
+    private final boolean enabled;
+    private final long flushIntervalMs;
+    private final int batchSize;
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Пачки пишет один поток за раз, иначе inFlight очистится раньше записи чужой пачки
+    private final Object flushLock = new Object();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushNeeded = lock.newCondition();
+
+    // filmId -> (userId -> true для лайка, false для дизлайка)
+    private final Map<Integer, Map<Integer, Boolean>> pending = new LinkedHashMap<>();
+    private final Map<Integer, Map<Integer, Boolean>> inFlight = new HashMap<>();
+    private int pendingSize = 0;
+
+    private volatile boolean running = false;
+    private Thread worker;
+
+    @Autowired
+    public LikeWriteBehindBuffer(@Qualifier("CachedFilmStorage") FilmStorage filmStorage, FilmLeaderboard leaderboard,
+                                 @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                 @Value("${filmorate.likes.write-behind.batch-size:1000}") int batchSize,
+                                 @Value("${filmorate.likes.write-behind.capacity:100000}") int capacity) {
+        this.filmStorage = filmStorage;
+        this.leaderboard = leaderboard;
+        this.enabled = enabled;
+        this.flushIntervalMs = flushIntervalMs;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::runWorker, "like-write-behind");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Отложенная запись лайков включена: интервал {} мс, пачка {}, буфер {}",
+                flushIntervalMs, batchSize, capacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        lock.lock();
+        try {
+            flushNeeded.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.info("Отложенная запись лайков остановлена, буфер записан");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ставит событие в буфер. Возвращает false, если состояние лайка с учётом
+     * незаписанных событий от этого не меняется.
+     */
+    public boolean offer(Film film, int userId, boolean like) {
+        lock.lock();
+        try {
+            Boolean current = findPending(film.getId(), userId);
+            boolean liked = current != null ? current : film.getLikes().contains(userId);
+            if (liked == like) {
+                return false;
+            }
+            Map<Integer, Boolean> filmEvents = pending.get(film.getId());
+            boolean merged = filmEvents != null && filmEvents.containsKey(userId);
+            while (!merged && pendingSize >= capacity) {
+                flushNeeded.signalAll();
+                notFull.awaitUninterruptibly();
+                filmEvents = pending.get(film.getId());
+                merged = filmEvents != null && filmEvents.containsKey(userId);
+            }
+            pending.computeIfAbsent(film.getId(), id -> new HashMap<>()).put(userId, like);
+            if (!merged) {
+                pendingSize++;
+            }
+            if (pendingSize >= batchSize) {
+                flushNeeded.signalAll();
+            }
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает фильм с учётом незаписанных лайков. Исходный объект не меняется,
+     * так как он может лежать в кэше. Фильм без загруженных лайков возвращается как есть:
+     * не зная лайков, нельзя понять, меняет ли событие их число, и likeCount догонит базу после записи буфера.
+     */
+    public Film applyPending(Film film) {
+        if (!enabled || film.getLikes() == null) {
+            return film;
+        }
+        lock.lock();
+        try {
+            Map<Integer, Boolean> events = new HashMap<>(inFlight.getOrDefault(film.getId(), Map.of()));
+            events.putAll(pending.getOrDefault(film.getId(), Map.of()));
+            if (events.isEmpty()) {
+                return film;
+            }
+            IdSet likes = film.getLikes().copy();
+            events.forEach((userId, like) -> {
+                if (like) {
+                    likes.add(userId);
+                } else {
+                    likes.remove(userId);
+                }
+            });
+
+            return new Film(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                    film.getDuration(), film.getRate(), film.getMpa(), film.getGenres(), likes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            while (drainBatch()) {
+                writeInFlight();
+            }
+        }
+    }
+
+    private void runWorker() {
+        while (running) {
+            lock.lock();
+            try {
+                if (running && pendingSize < batchSize) {
+                    flushNeeded.await(flushIntervalMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flush();
+            } catch (RuntimeException exception) {
+                log.error("Ошибка записи пачки лайков, события возвращены в буфер", exception);
+            }
+        }
+    }
+
+    // Переносит до batchSize событий из pending в inFlight
+    private boolean drainBatch() {
+        lock.lock();
+        try {
+            if (pendingSize == 0) {
+                return false;
+            }
+            int drained = 0;
+            Iterator<Map.Entry<Integer, Map<Integer, Boolean>>> films = pending.entrySet().iterator();
+            while (films.hasNext() && drained < batchSize) {
+                Map.Entry<Integer, Map<Integer, Boolean>> filmEvents = films.next();
+                Iterator<Map.Entry<Integer, Boolean>> events = filmEvents.getValue().entrySet().iterator();
+                while (events.hasNext() && drained < batchSize) {
+                    Map.Entry<Integer, Boolean> event = events.next();
+                    inFlight.computeIfAbsent(filmEvents.getKey(), id -> new HashMap<>())
+                            .put(event.getKey(), event.getValue());
+                    events.remove();
+                    drained++;
+                }
+                if (filmEvents.getValue().isEmpty()) {
+                    films.remove();
+                }
+            }
+            pendingSize -= drained;
+            notFull.signalAll();
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeInFlight() {
+        List<LikeRequest> likes = new ArrayList<>();
+        List<LikeRequest> unlikes = new ArrayList<>();
+        lock.lock();
+        try {
+            inFlight.forEach((filmId, events) -> events.forEach((userId, like) ->
+                    (like ? likes : unlikes).add(new LikeRequest(filmId, userId))));
+        } finally {
+            lock.unlock();
+        }
+        List<Boolean> added;
+        List<Boolean> removed;
+        try {
+            added = filmStorage.addLikes(likes);
+            removed = filmStorage.removeLikes(unlikes);
+        } catch (DataIntegrityViolationException exception) {
+            // Фильм или пользователь удалён, пока лайк ждал записи: пишем пачку поштучно
+            added = writeOneByOne(likes);
+            removed = filmStorage.removeLikes(unlikes);
+        } catch (RuntimeException exception) {
+            requeueInFlight();
+            throw exception;
+        }
+        undoNoOps(likes, added, unlikes, removed);
+        lock.lock();
+        try {
+            inFlight.clear();
+        } finally {
+            lock.unlock();
+        }
+        log.debug("Записана пачка лайков: {} лайков, {} дизлайков", likes.size(), unlikes.size());
+    }
+
+    // Отброшенный лайк считается событием, которое ничего не изменило
+    private List<Boolean> writeOneByOne(List<LikeRequest> likes) {
+        List<Boolean> added = new ArrayList<>(likes.size());
+        for (LikeRequest like : likes) {
+            try {
+                added.add(filmStorage.addLike(like.getFilmId(), like.getUserId()));
+            } catch (DataIntegrityViolationException exception) {
+                log.warn("Лайк фильму id: '{}' от пользователя id: '{}' отброшен: фильм или пользователь удалён",
+                        like.getFilmId(), like.getUserId());
+                added.add(false);
+            }
+        }
+
+        return added;
+    }
+
+    // Рейтинг учёл событие ещё в offer(). offer() решает по фильму, прочитанному до замка, и тот мог
+    // устареть, если пачка с тем же лайком записалась между чтением и offer(). Событие, которое
+    // ничего не изменило в базе, из рейтинга вычитается
+    private void undoNoOps(List<LikeRequest> likes, List<Boolean> added,
+                           List<LikeRequest> unlikes, List<Boolean> removed) {
+        for (int i = 0; i < likes.size(); i++) {
+            if (!added.get(i)) {
+                leaderboard.removeLike(likes.get(i).getFilmId());
+            }
+        }
+        for (int i = 0; i < unlikes.size(); i++) {
+            if (!removed.get(i)) {
+                leaderboard.addLike(unlikes.get(i).getFilmId());
+            }
+        }
+    }
+
+    // Более новые события из pending важнее возвращаемых
+    private void requeueInFlight() {
+        lock.lock();
+        try {
+            inFlight.forEach((filmId, events) -> events.forEach((userId, like) -> {
+                Map<Integer, Boolean> filmEvents = pending.computeIfAbsent(filmId, id -> new HashMap<>());
+                if (!filmEvents.containsKey(userId)) {
+                    filmEvents.put(userId, like);
+                    pendingSize++;
+                }
+            }));
+            inFlight.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Boolean findPending(int filmId, int userId) {
+        Map<Integer, Boolean> filmEvents = pending.get(filmId);
+        if (filmEvents != null && filmEvents.containsKey(userId)) {
+            return filmEvents.get(userId);
+        }
+        Map<Integer, Boolean> flushing = inFlight.get(filmId);
+
+        return flushing == null ? null : flushing.get(userId);
+    }
+}
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachedFilmStorage;
 
 import java.util.List;
 
@@ -12,6 +13,8 @@ import java.util.List;
 public class MpaService {
 
     private final MpaStorage mpaStorage;
+    private final DataVersions versions;
+    private final CachedFilmStorage filmCache;
 
     public List<Mpa> findAll() {
         return mpaStorage.findAll();
@@ -23,6 +26,19 @@ public class MpaService {
         return mpaStorage.findById(id);
     }
 
+    // Рейтинг MPA входит в ответы по фильмам, поэтому версия фильмов тоже меняется
+    public void reload() {
+        mpaStorage.reload();
+        // Фильмы в кэше ссылаются на прежние экземпляры Mpa
+        filmCache.clear();
+        versions.bump(DataVersions.Resource.MPA);
+        versions.bump(DataVersions.Resource.FILMS);
+    }
+
+    public String getVersionTag() {
+        return versions.tag(DataVersions.Resource.MPA);
+    }
+
     private Integer parseId(final String strId) {
         try {
             return Integer.valueOf(strId);
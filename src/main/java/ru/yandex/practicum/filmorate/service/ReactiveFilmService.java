@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.reactive.ReactiveFilmStorage;
+
+/**
+ * Реактивное чтение фильмов. Популярные фильмы, как и в FilmService, берутся из рейтинга в памяти,
+ * а ещё не записанные лайки из LikeWriteBehindBuffer учитываются при выдаче.
+ * Запросы к базе блокирующие (r2dbc-h2), поэтому подписка на них уходит в пул databaseScheduler.
+ */
+@Service
+@Profile("!memory")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveFilmService {
+
+    private final ReactiveFilmStorage filmStorage;
+    private final FilmLeaderboard leaderboard;
+    private final LikeWriteBehindBuffer likeBuffer;
+    private final Scheduler databaseScheduler;
+
+    public Flux<Film> getAll() {
+        return filmStorage.findAll().map(likeBuffer::applyPending).subscribeOn(databaseScheduler);
+    }
+
+    public Flux<Film> getPage(int afterId, int limit) {
+        return filmStorage.findPage(afterId, limit).map(likeBuffer::applyPending).subscribeOn(databaseScheduler);
+    }
+
+    public Mono<Film> findById(int id) {
+        return filmStorage.findById(id).map(likeBuffer::applyPending).subscribeOn(databaseScheduler);
+    }
+
+    public Flux<Film> getPopularFilms(int count) {
+        log.info("Список популярных фильмов отправлен");
+
+        return Flux.defer(() -> filmStorage.findByIds(leaderboard.getTop(count)))
+                .map(likeBuffer::applyPending)
+                .subscribeOn(databaseScheduler);
+    }
+}
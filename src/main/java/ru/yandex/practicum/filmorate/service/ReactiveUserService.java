@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.reactive.ReactiveUserStorage;
+
+@Service
+@Profile("!memory")
+@RequiredArgsConstructor
+public class ReactiveUserService {
+
+    private final ReactiveUserStorage userStorage;
+    // r2dbc-h2 блокирует подписавшийся поток, поэтому запросы уходят из потока Tomcat в отдельный пул
+    private final Scheduler databaseScheduler;
+
+    public Flux<User> getUserFriends(int userId) {
+        return userStorage.findFriends(userId).subscribeOn(databaseScheduler);
+    }
+}
@@ -11,9 +11,10 @@ import ru.yandex.practicum.filmorate.storage.UserStorage;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -28,9 +29,19 @@ public class UserService {
         this.userStorage = userStorage;
     }
 
-    public Collection<User> findAll() {
+    public List<User> findAll(boolean withFriends) {
         log.info("Список пользователей отправлен");
-        return userStorage.findAll();
+        return userStorage.findAll(withFriends);
+    }
+
+    public List<User> findPage(int afterId, int limit, boolean withFriends) {
+        log.info("Страница пользователей после id: '{}' отправлена", afterId);
+        return userStorage.findPage(afterId, limit, withFriends);
+    }
+
+    public void streamAll(Consumer<User> consumer) {
+        log.info("Выгрузка всех пользователей");
+        userStorage.streamAll(consumer);
     }
 
     public User create(User user) {
@@ -58,7 +69,7 @@ public class UserService {
     }
 
     public User deleteById(int id) {
-        if (!userStorage.findUsers().containsKey(id)) {
+        if (userStorage.isNotExist(id)) {
             throw new NotFoundException("HTTP ERROR 404: Невозможно удалить неизвестного пользователя");
         }
         log.info("Пользователь с id: '{}' удален", id);
@@ -67,38 +78,51 @@ public class UserService {
     }
 
     public void addFriendship(final String supposedUserId, final String supposedFriendId) {
-        User user = getUserStored(supposedUserId);
-        User friend = getUserStored(supposedFriendId);
-        userStorage.addFriendship(user.getId(), friend.getId());
+        int userId = getExistingUserId(supposedUserId);
+        int friendId = getExistingUserId(supposedFriendId);
+        userStorage.addFriendship(userId, friendId);
         log.info("Пользователь с id: '{}' добавлен с список друзей пользователя с id: '{}'", supposedUserId, supposedFriendId);
     }
 
     public void removeFriendship(final String supposedUserId, final String supposedFriendId) {
-        User user = getUserStored(supposedUserId);
-        User friend = getUserStored(supposedFriendId);
-        userStorage.removeFriendship(user.getId(), friend.getId());
+        int userId = getExistingUserId(supposedUserId);
+        int friendId = getExistingUserId(supposedFriendId);
+        userStorage.removeFriendship(userId, friendId);
         log.info("Пользователь с id: '{}' добавлен с список друзей пользователя с id: '{}'", supposedUserId, supposedFriendId);
     }
 
-    public Collection<User> getUserFriends(String userId) {
-        User user = getUserStored(userId);
-        Collection<User> friends = new HashSet<>();
-        for (Integer id : user.getFriends()) {
-            friends.add(userStorage.findUser(id));
-        }
-        return friends;
+    public Collection<User> getUserFriends(String userId, boolean withFriends) {
+        return userStorage.findFriends(getExistingUserId(userId), withFriends);
     }
 
     public User getUserById(final String supposedId) {
-        return getUserStored(supposedId);
+        return getUserById(supposedId, true);
+    }
+
+    // Без withFriends FRIENDSHIP не читается, friends в ответе остаётся null
+    public User getUserById(final String supposedId, boolean withFriends) {
+        return getUserStored(supposedId, withFriends);
     }
 
-    private User getUserStored(final String supposedId) {
+    // Проверка существования без загрузки пользователя и его друзей
+    public int getExistingUserId(final String supposedId) {
+        final int userId = parseId(supposedId);
+        if (userId == Integer.MIN_VALUE || userStorage.isNotExist(userId)) {
+            throw new NotFoundException(String.format("Пользователь с id: '%s' не зарегистрирован!", supposedId));
+        }
+        return userId;
+    }
+
+    public Set<Integer> findExistingIds(Collection<Integer> userIds) {
+        return userStorage.findExistingIds(userIds);
+    }
+
+    private User getUserStored(final String supposedId, boolean withFriends) {
         final int userId = parseId(supposedId);
         if (userId == Integer.MIN_VALUE) {
             throw new NotFoundException(String.format("Не удалось найти id пользователя: %d", supposedId));
         }
-        User user = userStorage.findUser(userId);
+        User user = userStorage.findUser(userId, withFriends);
         if (user == null) {
             throw new NotFoundException(String.format("Пользователь с id: '%d' не зарегистрирован!", userId));
         }
@@ -139,15 +163,9 @@ public class UserService {
         }
     }
 
-    public Collection<User> getCommonFriendsList(final String supposedUserId, final String supposedOtherId) {
-        User user = getUserStored(supposedUserId);
-        User otherUser = getUserStored(supposedOtherId);
-        Collection<User> commonFriends = new HashSet<>();
-        for (Integer id : user.getFriends()) {
-            if (otherUser.getFriends().contains(id)) {
-                commonFriends.add(userStorage.findUser(id));
-            }
-        }
-        return commonFriends;
+    public Collection<User> getCommonFriendsList(final String supposedUserId, final String supposedOtherId,
+                                                 boolean withFriends) {
+        return userStorage.findCommonFriends(getExistingUserId(supposedUserId), getExistingUserId(supposedOtherId),
+                withFriends);
     }
 }
\ No newline at end of file
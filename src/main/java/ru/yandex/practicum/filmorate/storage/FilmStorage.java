@@ -1,22 +1,54 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeRequest;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 
 public interface FilmStorage {
 
     Film create(Film film);
     Film update(Film film);
-    Optional <Film> findById(int id);
+    Optional <Film> findById(int id, boolean withLikes);
 
-    List<Film> findAll();
+    List<Film> findAll(boolean withLikes);
+    List<Film> findPage(int afterId, int limit, boolean withLikes);
+    void streamAll(Consumer<Film> consumer);
     List<Film> findPopularFilms(Integer count);
+    List<Film> findByIds(List<Integer> filmIds, boolean withLikes);
+
+    Map<Integer, Integer> findLikeCounts();
 
     boolean delete(Film film);
     boolean addLike(int filmId, int userId);
     boolean removeLike(int filmId, int userId);
+    List<Boolean> addLikes(List<LikeRequest> likes);
+    List<Boolean> removeLikes(List<LikeRequest> likes);
+    int reconcileLikeCounts();
+    Set<Integer> findExistingIds(Collection<Integer> filmIds);
     boolean isNotExist (int id);
+
+    // Без withLikes фильмы читаются вместе с лайками
+
+    default Optional<Film> findById(int id) {
+        return findById(id, true);
+    }
+
+    default List<Film> findByIds(List<Integer> filmIds) {
+        return findByIds(filmIds, true);
+    }
+
+    default List<Film> findAll() {
+        return findAll(true);
+    }
+
+    default List<Film> findPage(int afterId, int limit) {
+        return findPage(afterId, limit, true);
+    }
 }
\ No newline at end of file
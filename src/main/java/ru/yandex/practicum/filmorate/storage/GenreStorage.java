@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.util.Collection;
@@ -14,5 +15,14 @@ public interface GenreStorage {
 
     boolean addFilmGenres(int filmId, Collection<Genre> genres);
 
+    List<Genre> updateFilmGenres(int filmId, Collection<Genre> genres);
+
     boolean deleteFilmGenres(int filmId);
+
+    void loadFilmGenres(Collection<Film> films);
+
+    // Для всего каталога: жанры читаются без списка id
+    void loadAllFilmGenres(Collection<Film> films);
+
+    void reload();
 }
\ No newline at end of file
@@ -9,4 +9,6 @@ public interface MpaStorage {
     List<Mpa> findAll();
 
     Mpa findById(int mpaId);
+
+    void reload();
 }
\ No newline at end of file
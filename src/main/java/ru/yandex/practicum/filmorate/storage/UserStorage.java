@@ -2,9 +2,12 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
@@ -13,14 +16,41 @@ public interface UserStorage {
 
     Optional <User> findById(Integer id);
     User deleteById(Integer id);
-    User findUser(final Integer id);
+    User findUser(final Integer id, boolean withFriends);
 
     Map<Integer, User> findUsers();
-    List<User> findAll();
+    List<User> findAll(boolean withFriends);
+    List<User> findPage(int afterId, int limit, boolean withFriends);
+    void streamAll(Consumer<User> consumer);
+    List<User> findFriends(int userId, boolean withFriends);
+    List<User> findCommonFriends(int userId, int otherId, boolean withFriends);
 
     boolean deleteUser(User user);
     boolean addFriendship(Integer firstId, Integer secondId);
     boolean removeFriendship(Integer userId, Integer friendId);
 
     boolean isNotExist (int id);
+    Set<Integer> findExistingIds(Collection<Integer> userIds);
+
+    // Без withFriends списки читаются вместе с друзьями
+
+    default User findUser(final Integer id) {
+        return findUser(id, true);
+    }
+
+    default List<User> findAll() {
+        return findAll(true);
+    }
+
+    default List<User> findPage(int afterId, int limit) {
+        return findPage(afterId, limit, true);
+    }
+
+    default List<User> findFriends(int userId) {
+        return findFriends(userId, true);
+    }
+
+    default List<User> findCommonFriends(int userId, int otherId) {
+        return findCommonFriends(userId, otherId, true);
+    }
 }
\ No newline at end of file
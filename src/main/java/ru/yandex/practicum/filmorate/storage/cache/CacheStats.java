@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CacheStats {
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private int size;
+}
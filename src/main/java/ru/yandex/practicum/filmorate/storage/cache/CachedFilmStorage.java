@@ -0,0 +1,270 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeRequest;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * LRU-кэш фильмов по id поверх FilmStorage. Любая запись по фильму сбрасывает его из кэша.
+ * Закэшированные фильмы отдаются как есть, поэтому изменять их нельзя.
+ * В кэше лежат фильмы и с лайками, и без них: чтение без лайков берёт любой, чтение с лайками
+ * считает фильм без лайков промахом и заменяет его полным.
+ */
+@Component("CachedFilmStorage")
+public class CachedFilmStorage implements FilmStorage {
+
+    private final FilmStorage filmStorage;
+    private final int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    // Растёт при каждом сбросе. Метка сброса хранится по id: фильм, прочитанный до сброса
+    // именно этого фильма, в кэш уже не кладётся, а сбросы других фильмов его не касаются
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Map<Integer, Film> films;
+    // Метки последних сбросов, не больше maxSize. Метка вытесненного id переходит в tombstoneFloor
+    private final Map<Integer, Long> tombstones;
+    private long tombstoneFloor = 0;
+
+    @Autowired
+    public CachedFilmStorage(@Qualifier("FilmStorageEngine") FilmStorage filmStorage,
+                             @Value("${filmorate.cache.films.max-size:10000}") int maxSize) {
+        this.filmStorage = filmStorage;
+        this.maxSize = maxSize;
+        this.films = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Film> eldest) {
+                if (size() > CachedFilmStorage.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.tombstones = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+                if (size() > CachedFilmStorage.this.maxSize) {
+                    tombstoneFloor = Math.max(tombstoneFloor, eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Optional<Film> findById(int id, boolean withLikes) {
+        Film film = get(id, withLikes);
+        if (film != null) {
+            return Optional.of(film);
+        }
+        long readGeneration = generation.get();
+        Optional<Film> loaded = filmStorage.findById(id, withLikes);
+        loaded.ifPresent(value -> put(value, readGeneration));
+
+        return loaded;
+    }
+
+    @Override
+    public List<Film> findByIds(List<Integer> filmIds, boolean withLikes) {
+        Map<Integer, Film> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer filmId : filmIds) {
+            Film film = get(filmId, withLikes);
+            if (film != null) {
+                found.put(filmId, film);
+            } else {
+                missing.add(filmId);
+            }
+        }
+        long readGeneration = generation.get();
+        for (Film film : filmStorage.findByIds(missing, withLikes)) {
+            put(film, readGeneration);
+            found.put(film.getId(), film);
+        }
+        List<Film> result = new ArrayList<>(filmIds.size());
+        for (Integer filmId : filmIds) {
+            Film film = found.get(filmId);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public Film create(Film film) {
+        return filmStorage.create(film);
+    }
+
+    @Override
+    public Film update(Film film) {
+        try {
+            return filmStorage.update(film);
+        } finally {
+            invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public boolean delete(Film film) {
+        try {
+            return filmStorage.delete(film);
+        } finally {
+            invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        boolean changed = filmStorage.addLike(filmId, userId);
+        if (changed) {
+            invalidate(filmId);
+        }
+
+        return changed;
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        boolean changed = filmStorage.removeLike(filmId, userId);
+        if (changed) {
+            invalidate(filmId);
+        }
+
+        return changed;
+    }
+
+    @Override
+    public List<Boolean> addLikes(List<LikeRequest> likes) {
+        List<Boolean> added = filmStorage.addLikes(likes);
+        for (int i = 0; i < likes.size(); i++) {
+            if (added.get(i)) {
+                invalidate(likes.get(i).getFilmId());
+            }
+        }
+
+        return added;
+    }
+
+    @Override
+    public List<Boolean> removeLikes(List<LikeRequest> likes) {
+        List<Boolean> removed = filmStorage.removeLikes(likes);
+        for (int i = 0; i < likes.size(); i++) {
+            if (removed.get(i)) {
+                invalidate(likes.get(i).getFilmId());
+            }
+        }
+
+        return removed;
+    }
+
+    @Override
+    public int reconcileLikeCounts() {
+        return filmStorage.reconcileLikeCounts();
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> filmIds) {
+        return filmStorage.findExistingIds(filmIds);
+    }
+
+    @Override
+    public List<Film> findAll(boolean withLikes) {
+        return filmStorage.findAll(withLikes);
+    }
+
+    @Override
+    public List<Film> findPage(int afterId, int limit, boolean withLikes) {
+        return filmStorage.findPage(afterId, limit, withLikes);
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        filmStorage.streamAll(consumer);
+    }
+
+    @Override
+    public List<Film> findPopularFilms(Integer count) {
+        return filmStorage.findPopularFilms(count);
+    }
+
+    @Override
+    public Map<Integer, Integer> findLikeCounts() {
+        return filmStorage.findLikeCounts();
+    }
+
+    @Override
+    public boolean isNotExist(int id) {
+        return filmStorage.isNotExist(id);
+    }
+
+    public void invalidate(int filmId) {
+        synchronized (films) {
+            tombstones.remove(filmId);
+            tombstones.put(filmId, generation.incrementAndGet());
+            films.remove(filmId);
+        }
+    }
+
+    // Сбрасывает весь кэш. Фильмы, прочитанные до сброса, в кэш уже не попадут
+    public void clear() {
+        synchronized (films) {
+            tombstoneFloor = generation.incrementAndGet();
+            tombstones.clear();
+            films.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        synchronized (films) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), films.size());
+        }
+    }
+
+    private Film get(int filmId, boolean withLikes) {
+        Film film;
+        synchronized (films) {
+            film = films.get(filmId);
+        }
+        if (film != null && withLikes && film.getLikes() == null) {
+            film = null;
+        }
+        if (film == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        return film;
+    }
+
+    // Лайки сжимаются до того, как фильм станет виден другим потокам: в кэше он живёт долго
+    private void put(Film film, long readGeneration) {
+        if (film.getLikes() != null) {
+            film.getLikes().compact();
+        }
+        synchronized (films) {
+            if (tombstones.getOrDefault(film.getId(), tombstoneFloor) > readGeneration) {
+                return;
+            }
+            Film cached = films.get(film.getId());
+            // Фильм без лайков не вытесняет уже лежащий в кэше полный
+            if (film.getLikes() != null || cached == null || cached.getLikes() == null) {
+                films.put(film.getId(), film);
+            }
+        }
+    }
+}
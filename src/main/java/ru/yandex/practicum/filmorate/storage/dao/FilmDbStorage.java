@@ -3,38 +3,60 @@ package ru.yandex.practicum.filmorate.storage.dao;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.model.LikeRequest;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaStorage;
 
 import java.sql.*;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.sql.Date;
+import java.util.*;
+import java.util.function.Consumer;
 
 @Component("FilmDbStorage")
+@Qualifier("FilmStorageEngine")
+@Profile("!memory")
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
     private final Logger log = LoggerFactory.getLogger(FilmDbStorage.class);
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final String MERGE_LIKE = "MERGE INTO LIKES USING (VALUES (?, ?)) AS NEW_LIKE (USER_ID, FILM_ID) " +
+            "ON LIKES.USER_ID = NEW_LIKE.USER_ID AND LIKES.FILM_ID = NEW_LIKE.FILM_ID " +
+            "WHEN NOT MATCHED THEN INSERT (USER_ID, FILM_ID) VALUES (NEW_LIKE.USER_ID, NEW_LIKE.FILM_ID)";
+    private static final String DELETE_LIKE = "DELETE FROM LIKES WHERE FILM_ID = ? AND USER_ID = ?";
+    private static final String CHANGE_LIKE_COUNT = "UPDATE FILMS SET LIKE_COUNT = LIKE_COUNT + ? WHERE FILM_ID = ?";
+
     @Override
-    public Optional<Film> findById(int filmId) {
+    public Optional<Film> findById(int filmId, boolean withLikes) {
         String sqlQuery = "SELECT * FROM FILMS " +
-                "INNER JOIN RATING_MPA ON FILMS.RATING_ID = RATING_MPA.RATING_ID " +
                 "WHERE FILM_ID = ?";
         Film film;
         try {
-            film = jdbcTemplate.queryForObject(sqlQuery, (rs, rowNum) -> makeFilm(rs), filmId);
+            film = jdbcTemplate.queryForObject(sqlQuery, (rs, rowNum) -> makeFilm(rs, withLikes), filmId);
+            if (withLikes) {
+                film.setLikes(getFilmLikes(filmId));
+            }
+            genreStorage.loadFilmGenres(List.of(film));
         } catch (EmptyResultDataAccessException exception) {
             throw new NotFoundException(String.format("HTTP ERROR 404: Фильма с id=%d нет в базе данных", filmId));
         }
@@ -44,10 +66,52 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
-    public List<Film> findAll() {
-        final String sqlQuery = "SELECT * FROM FILMS, RATING_MPA WHERE FILMS.RATING_ID = RATING_MPA.RATING_ID ";
+    public List<Film> findAll(boolean withLikes) {
+        final String sqlQuery = "SELECT * FROM FILMS";
+        List<Film> films = jdbcTemplate.query(sqlQuery, (resultSet, rowNum) -> makeFilm(resultSet, withLikes));
+        if (withLikes) {
+            // Весь каталог - лайки читаем одним запросом без фильтра
+            fillLikes(films, "SELECT FILM_ID, USER_ID FROM LIKES");
+        }
+        genreStorage.loadAllFilmGenres(films);
+
+        return films;
+    }
+
+    @Override
+    public List<Film> findPage(int afterId, int limit, boolean withLikes) {
+        String sqlQuery = "SELECT * FROM FILMS " +
+                "WHERE FILMS.FILM_ID > ? " +
+                "ORDER BY FILMS.FILM_ID " +
+                "LIMIT ?";
+        List<Film> films = jdbcTemplate.query(sqlQuery, (rs, rowNum) -> makeFilm(rs, withLikes), afterId, limit);
+        if (withLikes) {
+            fillLikes(films);
+        }
+        genreStorage.loadFilmGenres(films);
 
-        return jdbcTemplate.query(sqlQuery, (resultSet, rowNum) -> makeFilm(resultSet));
+        return films;
+    }
+
+    // Фильмы читаются курсором и отдаются пачками: лайки и жанры подгружаются на пачку, а не на весь каталог.
+    // Транзакция держит одно соединение: запросы пачки идут через него, а не ждут второе из пула, пока открыт курсор
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Film> consumer) {
+        String sqlQuery = "SELECT * FROM FILMS " +
+                "ORDER BY FILMS.FILM_ID";
+        List<Film> batch = new ArrayList<>(STREAM_FETCH_SIZE);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement prepareStatement = connection.prepareStatement(sqlQuery);
+            prepareStatement.setFetchSize(STREAM_FETCH_SIZE);
+            return prepareStatement;
+        }, (RowCallbackHandler) rs -> {
+            batch.add(makeFilm(rs));
+            if (batch.size() == STREAM_FETCH_SIZE) {
+                flushBatch(batch, consumer);
+            }
+        });
+        flushBatch(batch, consumer);
     }
 
     @Override
@@ -75,9 +139,6 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public Film update(Film film) {
-        String sqlQueryDel = "DELETE FROM FILM_GENRE WHERE FILM_ID = ?";
-        jdbcTemplate.update(sqlQueryDel, film.getId());
-
         String sqlQuery = "UPDATE FILMS " +
                 "SET FILM_NAME = ?, DESCRIPTION = ?, RELEASE_DATE = ?, DURATION = ?, RATE = ? , RATING_ID = ? " +
                 "WHERE FILM_ID = ?";
@@ -89,7 +150,7 @@ public class FilmDbStorage implements FilmStorage {
                 film.getRate(),
                 film.getMpa().getId(),
                 film.getId());
-        // Убрали жанры и лайки из update
+        // Жанры обновляются отдельно в GenreStorage.updateFilmGenres, лайки - через addLike/removeLike
         return findById(film.getId()).orElseThrow(() ->
                 new NotFoundException(String.format("Ошибка при обновлении фильма с id=%d", film.getId())));
     }
@@ -102,40 +163,144 @@ public class FilmDbStorage implements FilmStorage {
         return true;
     }
 
+    // LIKE_COUNT меняется в той же транзакции, что и LIKES, и только если лайк действительно вставлен или удалён
+
     @Override
+    @Transactional
     public boolean addLike(int filmId, int userId) {
-        String sqlQuery = "SELECT * FROM LIKES WHERE USER_ID = ? AND FILM_ID = ?";
-        SqlRowSet existLike = jdbcTemplate.queryForRowSet(sqlQuery, userId, filmId);
-        if (!existLike.next()) {
-            String setLike = "INSERT INTO LIKES (USER_ID, FILM_ID) VALUES  (?, ?) ";
-            jdbcTemplate.update(setLike, userId, filmId);
+        // Вставка только если лайка ещё нет; одновременную вставку отсекает уникальный ключ (USER_ID, FILM_ID)
+        boolean added;
+        try {
+            added = jdbcTemplate.update(MERGE_LIKE, userId, filmId) > 0;
+        } catch (DuplicateKeyException exception) {
+            added = false;
+        }
+        if (added) {
+            jdbcTemplate.update(CHANGE_LIKE_COUNT, 1, filmId);
         }
-        SqlRowSet resultSet = jdbcTemplate.queryForRowSet(sqlQuery, userId, filmId);
-        log.info(String.valueOf(resultSet.next()));
 
-        return resultSet.next();
+        return added;
     }
 
     @Override
+    @Transactional
+    public List<Boolean> addLikes(List<LikeRequest> likes) {
+        List<Boolean> added = new ArrayList<>(likes.size());
+        if (likes.isEmpty()) {
+            return added;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(MERGE_LIKE, likes, likes.size(), (ps, like) -> {
+            ps.setInt(1, like.getUserId());
+            ps.setInt(2, like.getFilmId());
+        });
+        for (int count : counts[0]) {
+            added.add(count > 0);
+        }
+        changeLikeCounts(likes, added, 1);
+
+        return added;
+    }
+
+    @Override
+    @Transactional
+    public List<Boolean> removeLikes(List<LikeRequest> likes) {
+        List<Boolean> removed = new ArrayList<>(likes.size());
+        if (likes.isEmpty()) {
+            return removed;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(DELETE_LIKE, likes, likes.size(), (ps, like) -> {
+            ps.setInt(1, like.getFilmId());
+            ps.setInt(2, like.getUserId());
+        });
+        for (int count : counts[0]) {
+            removed.add(count > 0);
+        }
+        changeLikeCounts(likes, removed, -1);
+
+        return removed;
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> filmIds) {
+        if (filmIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        String inSql = String.join(",", Collections.nCopies(filmIds.size(), "?"));
+        String sqlQuery = String.format("SELECT FILM_ID FROM FILMS WHERE FILM_ID IN (%s)", inSql);
+
+        return new HashSet<>(jdbcTemplate.queryForList(sqlQuery, Integer.class, filmIds.toArray()));
+    }
+
+    @Override
+    @Transactional
     public boolean removeLike(int filmId, int userId) {
-        String deleteLike = "DELETE FROM LIKES WHERE FILM_ID = ? AND USER_ID = ?";
-        jdbcTemplate.update(deleteLike, filmId, userId);
+        boolean removed = jdbcTemplate.update(DELETE_LIKE, filmId, userId) > 0;
+        if (removed) {
+            jdbcTemplate.update(CHANGE_LIKE_COUNT, -1, filmId);
+        }
 
-        return true;
+        return removed;
+    }
+
+    @Override
+    @Transactional
+    public int reconcileLikeCounts() {
+        String sqlQuery = "UPDATE FILMS SET LIKE_COUNT = " +
+                "(SELECT COUNT(*) FROM LIKES WHERE LIKES.FILM_ID = FILMS.FILM_ID) " +
+                "WHERE LIKE_COUNT <> (SELECT COUNT(*) FROM LIKES WHERE LIKES.FILM_ID = FILMS.FILM_ID)";
+
+        return jdbcTemplate.update(sqlQuery);
     }
 
     @Override
     public List<Film> findPopularFilms(Integer count) {
-        String sqlQuery = "SELECT COUNT(L.LIKE_ID) AS like_rate, " +
-                "FILMS.FILM_ID, FILMS.FILM_NAME, FILMS.DESCRIPTION, " +
-                "FILMS.RELEASE_DATE, FILMS.DURATION, FILMS.RATE, R.RATING_ID, R.MPA_NAME, R.DESCRIPTION FROM FILMS " +
-                "LEFT JOIN LIKES AS L ON L.FILM_ID = FILMS.FILM_ID " +
-                "INNER JOIN RATING_MPA AS R ON R.RATING_ID = FILMS.RATING_ID " +
-                "GROUP BY FILMS.FILM_ID " +
-                "ORDER BY like_rate DESC " +
+        String sqlQuery = "SELECT * FROM FILMS " +
+                "ORDER BY LIKE_COUNT DESC, FILM_ID " +
                 "LIMIT ?";
 
-        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> makeFilm(rs), count);
+        List<Film> films = jdbcTemplate.query(sqlQuery, (rs, rowNum) -> makeFilm(rs), count);
+        fillLikes(films);
+        genreStorage.loadFilmGenres(films);
+
+        return films;
+    }
+
+    @Override
+    public List<Film> findByIds(List<Integer> filmIds, boolean withLikes) {
+        if (filmIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String inSql = String.join(",", Collections.nCopies(filmIds.size(), "?"));
+        String sqlQuery = String.format("SELECT * FROM FILMS " +
+                "WHERE FILM_ID IN (%s)", inSql);
+        Map<Integer, Film> filmsById = new HashMap<>();
+        jdbcTemplate.query(sqlQuery, (RowCallbackHandler) rs -> {
+            Film film = makeFilm(rs, withLikes);
+            filmsById.put(film.getId(), film);
+        }, filmIds.toArray());
+        List<Film> films = new ArrayList<>();
+        for (Integer filmId : filmIds) {
+            Film film = filmsById.get(filmId);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        if (withLikes) {
+            fillLikes(films);
+        }
+        genreStorage.loadFilmGenres(films);
+
+        return films;
+    }
+
+    @Override
+    public Map<Integer, Integer> findLikeCounts() {
+        String sqlQuery = "SELECT FILM_ID, LIKE_COUNT FROM FILMS";
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query(sqlQuery, (RowCallbackHandler) rs ->
+                likeCounts.put(rs.getInt("FILM_ID"), rs.getInt("LIKE_COUNT")));
+
+        return likeCounts;
     }
 
     @Override
@@ -143,9 +308,14 @@ public class FilmDbStorage implements FilmStorage {
         return false;
     }
 
-    // c N+1. Не получилось сделать вариант, чтоб проходил тесты постамана...
+    // Лайки и жанры не читаются в makeFilm: для списков они подгружаются одним запросом на весь список
 
     private Film makeFilm(ResultSet resultSet) throws SQLException {
+        return makeFilm(resultSet, true);
+    }
+
+    // Без лайков набор остаётся null, а их число берётся из LIKE_COUNT
+    private Film makeFilm(ResultSet resultSet, boolean withLikes) throws SQLException {
         int filmId = resultSet.getInt("FILM_ID");
         Film film = new Film(
                 filmId,
@@ -154,20 +324,68 @@ public class FilmDbStorage implements FilmStorage {
                 Objects.requireNonNull(resultSet.getDate("FILMS.RELEASE_DATE")).toLocalDate(),
                 resultSet.getInt("FILMS.DURATION"),
                 resultSet.getInt("FILMS.RATE"),
-                new Mpa(resultSet.getInt("RATING_MPA.RATING_ID"),
-                        resultSet.getString("RATING_MPA.MPA_NAME"),
-                        resultSet.getString("RATING_MPA.DESCRIPTION")),
-                null,
-                getFilmLikes(filmId)
+                mpaStorage.findById(resultSet.getInt("FILMS.RATING_ID")),
+                new ArrayList<>(),
+                withLikes ? new IdSet() : null
         );
+        film.setLikeCount(resultSet.getInt("FILMS.LIKE_COUNT"));
 
         return film;
     }
 
 
-    private List<Integer> getFilmLikes(Integer filmId) {
+    // Счётчики сдвигаются одним batchUpdate на все затронутые фильмы пачки
+    private void changeLikeCounts(List<LikeRequest> likes, List<Boolean> changed, int sign) {
+        Map<Integer, Integer> deltas = new HashMap<>();
+        for (int i = 0; i < likes.size(); i++) {
+            if (changed.get(i)) {
+                deltas.merge(likes.get(i).getFilmId(), sign, Integer::sum);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Integer, Integer>> entries = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(CHANGE_LIKE_COUNT, entries, entries.size(), (ps, entry) -> {
+            ps.setInt(1, entry.getValue());
+            ps.setInt(2, entry.getKey());
+        });
+    }
+
+    private void flushBatch(List<Film> batch, Consumer<Film> consumer) {
+        fillLikes(batch);
+        genreStorage.loadFilmGenres(batch);
+        batch.forEach(consumer);
+        batch.clear();
+    }
+
+    private void fillLikes(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        String inSql = String.join(",", Collections.nCopies(films.size(), "?"));
+        fillLikes(films, String.format("SELECT FILM_ID, USER_ID FROM LIKES WHERE FILM_ID IN (%s)", inSql),
+                films.stream().map(Film::getId).toArray());
+    }
+
+    private void fillLikes(List<Film> films, String sqlQuery, Object... args) {
+        Map<Integer, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+        jdbcTemplate.query(sqlQuery, (RowCallbackHandler) rs -> {
+            Film film = filmsById.get(rs.getInt("FILM_ID"));
+            if (film != null) {
+                film.getLikes().add(rs.getInt("USER_ID"));
+            }
+        }, args);
+    }
+
+    private IdSet getFilmLikes(Integer filmId) {
         String sqlQuery = "SELECT USER_ID FROM LIKES WHERE FILM_ID = ?";
+        IdSet likes = new IdSet();
+        jdbcTemplate.query(sqlQuery, (RowCallbackHandler) rs -> likes.add(rs.getInt("USER_ID")), filmId);
 
-        return jdbcTemplate.queryForList(sqlQuery, Integer.class, filmId);
+        return likes;
     }
 }
\ No newline at end of file
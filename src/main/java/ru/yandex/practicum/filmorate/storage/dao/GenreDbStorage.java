@@ -1,22 +1,45 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.EmptyResultDataAccessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
 
+import javax.annotation.PostConstruct;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
 
+/**
+ * Справочник жанров читается один раз при старте, фильмы получают общие экземпляры Genre из него.
+ */
 @Component
+@Profile("!memory")
 @RequiredArgsConstructor
+@Slf4j
 public class GenreDbStorage implements GenreStorage {
     private final JdbcTemplate jdbcTemplate;
 
+    private volatile Map<Integer, Genre> genresById = Collections.emptyMap();
+
+    @PostConstruct
+    @Override
+    public void reload() {
+        String sqlQuery = "SELECT GENRE_ID, GENRE_NAME FROM GENRES ORDER BY GENRE_ID";
+        Map<Integer, Genre> loaded = new LinkedHashMap<>();
+        for (Genre genre : jdbcTemplate.query(sqlQuery, this::makeGenre)) {
+            loaded.put(genre.getId(), genre);
+        }
+        genresById = Collections.unmodifiableMap(loaded);
+        log.info("Справочник жанров загружен: {} записей", loaded.size());
+    }
+
     @Override
     public boolean deleteFilmGenres(int filmId) {
         String sqlQuery = "DELETE FROM FILM_GENRE WHERE FILM_ID = ?";
@@ -27,21 +50,96 @@ public class GenreDbStorage implements GenreStorage {
 
     @Override
     public boolean addFilmGenres(int filmId, Collection<Genre> genres) {
+        Set<Integer> genreIds = new TreeSet<>();
         for (Genre genre : genres) {
-            String sqlQuery = "INSERT INTO FILM_GENRE (FILM_ID, GENRE_ID) VALUES (?, ?) ON CONFLICT DO NOTHING";
-            jdbcTemplate.update(sqlQuery, filmId, genre.getId());
+            genreIds.add(genre.getId());
         }
+        insertFilmGenres(filmId, genreIds);
 
         return true;
     }
 
+    // Пишутся только изменившиеся жанры: не больше трёх запросов при любом числе жанров
+    @Override
+    public List<Genre> updateFilmGenres(int filmId, Collection<Genre> genres) {
+        Set<Integer> newGenreIds = new TreeSet<>();
+        for (Genre genre : genres) {
+            newGenreIds.add(findById(genre.getId()).getId());
+        }
+        String sqlQuery = "SELECT GENRE_ID FROM FILM_GENRE WHERE FILM_ID = ?";
+        Set<Integer> oldGenreIds = new HashSet<>(jdbcTemplate.queryForList(sqlQuery, Integer.class, filmId));
+
+        List<Integer> removed = new ArrayList<>(oldGenreIds);
+        removed.removeAll(newGenreIds);
+        List<Integer> added = new ArrayList<>(newGenreIds);
+        added.removeAll(oldGenreIds);
+        if (!removed.isEmpty()) {
+            String deleteQuery = "DELETE FROM FILM_GENRE WHERE FILM_ID = ? AND GENRE_ID = ?";
+            jdbcTemplate.batchUpdate(deleteQuery, removed, removed.size(), (ps, genreId) -> {
+                ps.setInt(1, filmId);
+                ps.setInt(2, genreId);
+            });
+        }
+        insertFilmGenres(filmId, added);
+
+        List<Genre> result = new ArrayList<>();
+        for (Integer genreId : newGenreIds) {
+            result.add(findById(genreId));
+        }
+
+        return result;
+    }
+
+    private void insertFilmGenres(int filmId, Collection<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
+        String sqlQuery = "MERGE INTO FILM_GENRE (FILM_ID, GENRE_ID) KEY (FILM_ID, GENRE_ID) VALUES (?, ?)";
+        jdbcTemplate.batchUpdate(sqlQuery, genreIds, genreIds.size(), (ps, genreId) -> {
+            ps.setInt(1, filmId);
+            ps.setInt(2, genreId);
+        });
+    }
+
     @Override
     public List<Genre> getGenresByFilmId(int filmId) {
-        String sqlQuery = "SELECT GENRES.GENRE_ID, GENRES.GENRE_NAME FROM GENRES " +
-                "INNER JOIN FILM_GENRE ON GENRES.GENRE_ID = FILM_GENRE.GENRE_ID " +
-                "WHERE FILM_ID = ?";
+        String sqlQuery = "SELECT GENRE_ID FROM FILM_GENRE WHERE FILM_ID = ? ORDER BY GENRE_ID";
+
+        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> findById(rs.getInt("GENRE_ID")), filmId);
+    }
+
+    @Override
+    public void loadFilmGenres(Collection<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        String inSql = String.join(",", Collections.nCopies(films.size(), "?"));
+        loadFilmGenres(films, String.format("SELECT FILM_ID, GENRE_ID FROM FILM_GENRE " +
+                "WHERE FILM_ID IN (%s) " +
+                "ORDER BY FILM_ID, GENRE_ID", inSql), films.stream().map(Film::getId).toArray());
+    }
+
+    @Override
+    public void loadAllFilmGenres(Collection<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        loadFilmGenres(films, "SELECT FILM_ID, GENRE_ID FROM FILM_GENRE ORDER BY FILM_ID, GENRE_ID");
+    }
 
-        return jdbcTemplate.query(sqlQuery, this::makeGenre, filmId);
+    // Строки фильмов, которых нет в списке (созданных после чтения FILMS), пропускаются
+    private void loadFilmGenres(Collection<Film> films, String sqlQuery, Object... args) {
+        Map<Integer, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            film.setGenres(new ArrayList<>());
+            filmsById.put(film.getId(), film);
+        }
+        jdbcTemplate.query(sqlQuery, (RowCallbackHandler) rs -> {
+            Film film = filmsById.get(rs.getInt("FILM_ID"));
+            if (film != null) {
+                film.getGenres().add(findById(rs.getInt("GENRE_ID")));
+            }
+        }, args);
     }
 
     private Genre makeGenre(ResultSet resultSet, int rowNum) throws SQLException {
@@ -51,18 +149,13 @@ public class GenreDbStorage implements GenreStorage {
 
     @Override
     public List<Genre> findAll() {
-        String sqlQuery = "SELECT GENRE_ID, GENRE_NAME FROM GENRES ORDER BY GENRE_ID";
-
-        return jdbcTemplate.query(sqlQuery, this::makeGenre);
+        return new ArrayList<>(genresById.values());
     }
 
     @Override
     public Genre findById(int genreId) {
-        String sqlQuery = "SELECT * FROM GENRES WHERE GENRE_ID = ?";
-        Genre genre;
-        try {
-            genre = jdbcTemplate.queryForObject(sqlQuery, this::makeGenre, genreId);
-        } catch (EmptyResultDataAccessException e) {
+        Genre genre = genresById.get(genreId);
+        if (genre == null) {
             throw new NotFoundException(String.format("Жанр с id: '%d' не найден", genreId));
         }
 
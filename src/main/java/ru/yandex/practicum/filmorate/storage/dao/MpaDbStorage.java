@@ -1,7 +1,8 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.EmptyResultDataAccessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
@@ -9,21 +10,40 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.MpaStorage;
 
+import javax.annotation.PostConstruct;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
+import java.util.*;
 
+/**
+ * Справочник рейтингов MPA почти не меняется, поэтому читается один раз при старте.
+ * Все фильмы ссылаются на одни и те же экземпляры Mpa из этого справочника.
+ */
 @Component
+@Profile("!memory")
 @RequiredArgsConstructor
+@Slf4j
 public class MpaDbStorage implements MpaStorage {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private volatile Map<Integer, Mpa> mpaById = Collections.emptyMap();
+
+    @PostConstruct
     @Override
-    public List<Mpa> findAll() {
-        String sqlQuery = "SELECT * FROM RATING_MPA";
+    public void reload() {
+        String sqlQuery = "SELECT * FROM RATING_MPA ORDER BY RATING_ID";
+        Map<Integer, Mpa> loaded = new LinkedHashMap<>();
+        for (Mpa mpa : jdbcTemplate.query(sqlQuery, this::makeMpa)) {
+            loaded.put(mpa.getId(), mpa);
+        }
+        mpaById = Collections.unmodifiableMap(loaded);
+        log.info("Справочник MPA загружен: {} записей", loaded.size());
+    }
 
-        return jdbcTemplate.query(sqlQuery, this::makeMpa);
+    @Override
+    public List<Mpa> findAll() {
+        return new ArrayList<>(mpaById.values());
     }
 
     private Mpa makeMpa(ResultSet rs, int rowNum) throws SQLException {
@@ -34,14 +54,11 @@ public class MpaDbStorage implements MpaStorage {
 
     @Override
     public Mpa findById(int mpaId) {
-        String sqlQuery = "SELECT * FROM RATING_MPA WHERE RATING_ID = ?";
-        Mpa mpa;
-        try {
-            mpa = jdbcTemplate.queryForObject(sqlQuery, this::makeMpa, mpaId);
-        } catch (EmptyResultDataAccessException e) {
+        Mpa mpa = mpaById.get(mpaId);
+        if (mpa == null) {
             throw new NotFoundException(String.format("Возрастной рейтинг с id: '%d' не найден", mpaId));
         }
 
         return mpa;
     }
-}
\ No newline at end of file
+}
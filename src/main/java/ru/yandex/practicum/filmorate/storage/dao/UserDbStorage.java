@@ -1,13 +1,17 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import ru.yandex.practicum.filmorate.model.IdSet;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
@@ -16,12 +20,23 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import java.sql.*;
 import java.sql.Date;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Component("UserDbStorage")
+@Profile("!memory")
 @RequiredArgsConstructor
 public class UserDbStorage implements UserStorage {
     private final JdbcTemplate jdbcTemplate;
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    // id пользователей, существование которых уже подтверждено: проверка без загрузки User
+    private final Set<Integer> knownUserIds = ConcurrentHashMap.newKeySet();
+    // Растёт при каждом удалении: id, прочитанный до удаления, в knownUserIds уже не попадает
+    private final AtomicLong deletions = new AtomicLong();
+
     @Override
     public User create(User user) {
         final String sqlQuery = "INSERT INTO USERS (EMAIL, LOGIN, USER_NAME, BIRTHDAY) " +
@@ -37,6 +52,7 @@ public class UserDbStorage implements UserStorage {
         }, keyHolder);
 
         int id = Objects.requireNonNull(keyHolder.getKey()).intValue();
+        knownUserIds.add(id);
 
         if (user.getFriends() != null) {
             for (Integer friendId : user.getFriends()) {
@@ -65,6 +81,7 @@ public class UserDbStorage implements UserStorage {
         User user;
         try {
             user = jdbcTemplate.queryForObject(sqlQuery, (rs, rowNum) -> makeUser(rs), id);
+            user.setFriends(getUserFriends(id));
         } catch (EmptyResultDataAccessException e) {
             throw new NotFoundException("HTTP ERROR 404: Пользователь с id: '" +
                     id + "' не зарегистрирован!");
@@ -78,7 +95,9 @@ public class UserDbStorage implements UserStorage {
         final String sqlQuery = "DELETE FROM USERS WHERE USER_ID = ?";
         User user = findById(id).orElseThrow(() ->
                 new NotFoundException(String.format("Ошибка при удалении пользователя с id=%d", id)));
+        forget(id);
         jdbcTemplate.update(sqlQuery, id);
+        forget(id);
 
         return user;
     }
@@ -86,15 +105,82 @@ public class UserDbStorage implements UserStorage {
     @Override
     public boolean deleteUser(User user) {
         String sqlQuery = "DELETE FROM USERS WHERE USER_ID = ?";
+        forget(user.getId());
+        boolean deleted = jdbcTemplate.update(sqlQuery, user.getId()) > 0;
+        forget(user.getId());
 
-        return jdbcTemplate.update(sqlQuery, user.getId()) > 0;
+        return deleted;
     }
 
     @Override
-    public List<User> findAll() {
+    public List<User> findAll(boolean withFriends) {
         String sqlQuery = "SELECT * FROM USERS";
+        List<User> users = jdbcTemplate.query(sqlQuery, (rs, rowNum) -> makeUser(rs, withFriends));
+        if (withFriends) {
+            fillFriends(users, "SELECT USER_ID, FRIEND_ID FROM FRIENDSHIP");
+        }
+
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit, boolean withFriends) {
+        String sqlQuery = "SELECT * FROM USERS WHERE USER_ID > ? ORDER BY USER_ID LIMIT ?";
+        List<User> users = jdbcTemplate.query(sqlQuery, (rs, rowNum) -> makeUser(rs, withFriends), afterId, limit);
+        if (withFriends) {
+            fillFriends(users);
+        }
+
+        return users;
+    }
+
+    // Друзья пачки читаются через соединение курсора, которое держит транзакция
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<User> consumer) {
+        String sqlQuery = "SELECT * FROM USERS ORDER BY USER_ID";
+        List<User> batch = new ArrayList<>(STREAM_FETCH_SIZE);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement prepareStatement = connection.prepareStatement(sqlQuery);
+            prepareStatement.setFetchSize(STREAM_FETCH_SIZE);
+            return prepareStatement;
+        }, (RowCallbackHandler) rs -> {
+            batch.add(makeUser(rs));
+            if (batch.size() == STREAM_FETCH_SIZE) {
+                flushBatch(batch, consumer);
+            }
+        });
+        flushBatch(batch, consumer);
+    }
+
+    @Override
+    public List<User> findFriends(int userId, boolean withFriends) {
+        String sqlQuery = "SELECT USERS.* FROM FRIENDSHIP " +
+                "INNER JOIN USERS ON USERS.USER_ID = FRIENDSHIP.FRIEND_ID " +
+                "WHERE FRIENDSHIP.USER_ID = ? " +
+                "ORDER BY USERS.USER_ID";
+        List<User> friends = jdbcTemplate.query(sqlQuery, (rs, rowNum) -> makeUser(rs, withFriends), userId);
+        if (withFriends) {
+            fillFriends(friends);
+        }
+
+        return friends;
+    }
+
+    @Override
+    public List<User> findCommonFriends(int userId, int otherId, boolean withFriends) {
+        String sqlQuery = "SELECT USERS.* FROM FRIENDSHIP AS F1 " +
+                "INNER JOIN FRIENDSHIP AS F2 ON F2.FRIEND_ID = F1.FRIEND_ID " +
+                "INNER JOIN USERS ON USERS.USER_ID = F1.FRIEND_ID " +
+                "WHERE F1.USER_ID = ? AND F2.USER_ID = ? " +
+                "ORDER BY USERS.USER_ID";
+        List<User> friends = jdbcTemplate.query(sqlQuery, (rs, rowNum) -> makeUser(rs, withFriends),
+                userId, otherId);
+        if (withFriends) {
+            fillFriends(friends);
+        }
 
-        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> makeUser(rs));
+        return friends;
     }
 
     @Override
@@ -129,16 +215,51 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public boolean isNotExist(int id) {
+        if (knownUserIds.contains(id)) {
+            return false;
+        }
+        String sqlQuery = "SELECT EXISTS (SELECT 1 FROM USERS WHERE USER_ID = ?)";
+        long readGeneration = deletions.get();
+        boolean exists = Boolean.TRUE.equals(jdbcTemplate.queryForObject(sqlQuery, Boolean.class, id));
+        if (exists) {
+            remember(List.of(id), readGeneration);
+        }
 
-        return false;
+        return !exists;
     }
 
     @Override
-    public User findUser(Integer id) {
+    public Set<Integer> findExistingIds(Collection<Integer> userIds) {
+        Set<Integer> existing = new HashSet<>();
+        List<Integer> unknown = new ArrayList<>();
+        for (Integer userId : userIds) {
+            if (knownUserIds.contains(userId)) {
+                existing.add(userId);
+            } else {
+                unknown.add(userId);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            String inSql = String.join(",", Collections.nCopies(unknown.size(), "?"));
+            String sqlQuery = String.format("SELECT USER_ID FROM USERS WHERE USER_ID IN (%s)", inSql);
+            long readGeneration = deletions.get();
+            List<Integer> found = jdbcTemplate.queryForList(sqlQuery, Integer.class, unknown.toArray());
+            remember(found, readGeneration);
+            existing.addAll(found);
+        }
+
+        return existing;
+    }
+
+    @Override
+    public User findUser(Integer id, boolean withFriends) {
         String sqlQuery = "SELECT * FROM USERS WHERE USER_ID = ?";
         User user;
         try {
-            user = jdbcTemplate.queryForObject(sqlQuery, (rs, rowNum) -> makeUser(rs), id);
+            user = jdbcTemplate.queryForObject(sqlQuery, (rs, rowNum) -> makeUser(rs, withFriends), id);
+            if (withFriends) {
+                user.setFriends(getUserFriends(id));
+            }
         } catch (EmptyResultDataAccessException e) {
             throw new NotFoundException("Пользователь с id: " +
                     id + " не зарегистрирован!");
@@ -154,7 +275,28 @@ public class UserDbStorage implements UserStorage {
         return users;
     }
 
+    // Проверка поколения и добавление идут под тем же замком, что и удаление из набора
+    private void remember(Collection<Integer> userIds, long readGeneration) {
+        synchronized (knownUserIds) {
+            if (deletions.get() == readGeneration) {
+                knownUserIds.addAll(userIds);
+            }
+        }
+    }
+
+    private void forget(int userId) {
+        synchronized (knownUserIds) {
+            deletions.incrementAndGet();
+            knownUserIds.remove(userId);
+        }
+    }
+
     private User makeUser(ResultSet resultSet) throws SQLException {
+        return makeUser(resultSet, true);
+    }
+
+    // Без друзей набор остаётся null, FRIENDSHIP для такого пользователя не читается
+    private User makeUser(ResultSet resultSet, boolean withFriends) throws SQLException {
         int userId = resultSet.getInt("USER_ID");
 
         return new User(
@@ -163,12 +305,42 @@ public class UserDbStorage implements UserStorage {
                 resultSet.getString("LOGIN"),
                 resultSet.getString("USER_NAME"),
                 Objects.requireNonNull(resultSet.getDate("BIRTHDAY")).toLocalDate(),
-                getUserFriends(userId));
+                withFriends ? new IdSet() : null);
+    }
+
+    private void flushBatch(List<User> batch, Consumer<User> consumer) {
+        fillFriends(batch);
+        batch.forEach(consumer);
+        batch.clear();
+    }
+
+    private void fillFriends(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        String inSql = String.join(",", Collections.nCopies(users.size(), "?"));
+        fillFriends(users, String.format("SELECT USER_ID, FRIEND_ID FROM FRIENDSHIP WHERE USER_ID IN (%s)", inSql),
+                users.stream().map(User::getId).toArray());
+    }
+
+    private void fillFriends(List<User> users, String sqlQuery, Object... args) {
+        Map<Integer, User> usersById = new HashMap<>();
+        for (User user : users) {
+            usersById.put(user.getId(), user);
+        }
+        jdbcTemplate.query(sqlQuery, (RowCallbackHandler) rs -> {
+            User user = usersById.get(rs.getInt("USER_ID"));
+            if (user != null) {
+                user.getFriends().add(rs.getInt("FRIEND_ID"));
+            }
+        }, args);
     }
 
-    private List<Integer> getUserFriends(int userId) {
+    private IdSet getUserFriends(int userId) {
         String sqlQuery = "SELECT FRIEND_ID FROM FRIENDSHIP WHERE USER_ID = ?";
+        IdSet friends = new IdSet();
+        jdbcTemplate.query(sqlQuery, (RowCallbackHandler) rs -> friends.add(rs.getInt("FRIEND_ID")), userId);
 
-        return jdbcTemplate.queryForList(sqlQuery, Integer.class, userId);
+        return friends;
     }
 }
\ No newline at end of file
@@ -0,0 +1,276 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.model.LikeRequest;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище фильмов в памяти для профиля memory. Фильмы лежат в {@link StripedIntMap} по id,
+ * лайки - сжатым набором id прямо в записи фильма, поэтому число лайков и есть размер набора.
+ * Наружу отдаются копии, записи меняются только под замком своего сегмента.
+ */
+@Component("InMemoryFilmStorage")
+@Qualifier("FilmStorageEngine")
+@Profile("memory")
+@RequiredArgsConstructor
+public class InMemoryFilmStorage implements FilmStorage {
+
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    // Хранилище пользователей само зависит от этого, поэтому берётся лениво
+    private final ObjectProvider<InMemoryUserStorage> userStorage;
+
+    private final StripedIntMap<FilmRecord> films = new StripedIntMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    @Override
+    public Film create(Film film) {
+        int id = lastId.incrementAndGet();
+        FilmRecord record = new FilmRecord();
+        record.update(film, mpaStorage.findById(film.getMpa().getId()));
+        films.put(id, record);
+        film.setId(id);
+
+        return findById(id).orElseThrow(() ->
+                new NotFoundException(String.format("Ошибка при создании фильма с id=%d", id)));
+    }
+
+    @Override
+    public Film update(Film film) {
+        Mpa mpa = mpaStorage.findById(film.getMpa().getId());
+        films.write(film.getId(), record -> {
+            if (record == null) {
+                throw new NotFoundException(String.format("Ошибка при обновлении фильма с id=%d", film.getId()));
+            }
+            record.update(film, mpa);
+            return record;
+        });
+
+        return findById(film.getId()).orElseThrow(() ->
+                new NotFoundException(String.format("Ошибка при обновлении фильма с id=%d", film.getId())));
+    }
+
+    @Override
+    public Optional<Film> findById(int id, boolean withLikes) {
+        Film film = read(id, withLikes);
+        if (film == null) {
+            throw new NotFoundException(String.format("HTTP ERROR 404: Фильма с id=%d нет в хранилище", id));
+        }
+        genreStorage.loadFilmGenres(List.of(film));
+
+        return Optional.of(film);
+    }
+
+    @Override
+    public List<Film> findAll(boolean withLikes) {
+        return findPage(0, Integer.MAX_VALUE, withLikes);
+    }
+
+    // id выдаются подряд, поэтому страница - это проход по id после курсора с пропуском удалённых
+    @Override
+    public List<Film> findPage(int afterId, int limit, boolean withLikes) {
+        List<Film> page = new ArrayList<>();
+        int last = lastId.get();
+        for (int id = afterId + 1; id > 0 && id <= last && page.size() < limit; id++) {
+            Film film = read(id, withLikes);
+            if (film != null) {
+                page.add(film);
+            }
+        }
+        genreStorage.loadFilmGenres(page);
+
+        return page;
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        int last = lastId.get();
+        for (int id = 1; id <= last; id++) {
+            Film film = read(id);
+            if (film != null) {
+                genreStorage.loadFilmGenres(List.of(film));
+                consumer.accept(film);
+            }
+        }
+    }
+
+    // Ключ сортировки: число лайков в старших 32 битах, обратный id в младших - больше лайков, затем меньше id
+    @Override
+    public List<Film> findPopularFilms(Integer count) {
+        LongArrayList keys = new LongArrayList();
+        films.forEach((record, id) -> keys.add(((long) record.likes.size() << 32) | (Integer.MAX_VALUE - id)));
+        keys.sort(null);
+        List<Integer> filmIds = new ArrayList<>(Math.min(count, keys.size()));
+        for (int i = keys.size() - 1; i >= 0 && filmIds.size() < count; i--) {
+            filmIds.add(Integer.MAX_VALUE - (int) keys.getLong(i));
+        }
+
+        return findByIds(filmIds);
+    }
+
+    @Override
+    public List<Film> findByIds(List<Integer> filmIds, boolean withLikes) {
+        List<Film> result = new ArrayList<>(filmIds.size());
+        for (Integer filmId : filmIds) {
+            Film film = read(filmId, withLikes);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        genreStorage.loadFilmGenres(result);
+
+        return result;
+    }
+
+    @Override
+    public Map<Integer, Integer> findLikeCounts() {
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        films.forEach((record, id) -> likeCounts.put(id, record.likes.size()));
+
+        return likeCounts;
+    }
+
+    @Override
+    public boolean delete(Film film) {
+        films.remove(film.getId());
+        genreStorage.deleteFilmGenres(film.getId());
+
+        return true;
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        checkLikeTarget(filmId, userId);
+        return films.write(filmId, record -> {
+            if (record == null) {
+                throw likeTargetMissing(filmId, userId);
+            }
+            return record.likes.add(userId);
+        });
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        return films.write(filmId, record -> record != null && record.likes.remove(userId));
+    }
+
+    @Override
+    public List<Boolean> addLikes(List<LikeRequest> likes) {
+        // Как и пачка в базе, пачка не пишется частично: все фильмы и пользователи проверяются заранее
+        for (LikeRequest like : likes) {
+            checkLikeTarget(like.getFilmId(), like.getUserId());
+        }
+        List<Boolean> added = new ArrayList<>(likes.size());
+        for (LikeRequest like : likes) {
+            added.add(addLike(like.getFilmId(), like.getUserId()));
+        }
+
+        return added;
+    }
+
+    @Override
+    public List<Boolean> removeLikes(List<LikeRequest> likes) {
+        List<Boolean> removed = new ArrayList<>(likes.size());
+        for (LikeRequest like : likes) {
+            removed.add(removeLike(like.getFilmId(), like.getUserId()));
+        }
+
+        return removed;
+    }
+
+    // Отдельного счётчика нет, число лайков считается по набору, расходиться нечему
+    @Override
+    public int reconcileLikeCounts() {
+        return 0;
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> filmIds) {
+        Set<Integer> existing = new HashSet<>();
+        for (Integer filmId : filmIds) {
+            if (filmId != null && films.containsKey(filmId)) {
+                existing.add(filmId);
+            }
+        }
+
+        return existing;
+    }
+
+    @Override
+    public boolean isNotExist(int id) {
+        return !films.containsKey(id);
+    }
+
+    // Лайк удалённому фильму или от удалённого пользователя база отклоняет по внешнему ключу, здесь так же
+    private void checkLikeTarget(int filmId, int userId) {
+        if (!films.containsKey(filmId) || userStorage.getObject().isNotExist(userId)) {
+            throw likeTargetMissing(filmId, userId);
+        }
+    }
+
+    private static DataIntegrityViolationException likeTargetMissing(int filmId, int userId) {
+        return new DataIntegrityViolationException(String.format(
+                "Лайк фильму id=%d от пользователя id=%d: фильма или пользователя нет в хранилище", filmId, userId));
+    }
+
+    // Для InMemoryUserStorage: пользователя с лайками не удалить, как и в базе
+    boolean hasLikesFrom(int userId) {
+        boolean[] found = new boolean[1];
+        films.forEach((record, filmId) -> found[0] |= record.likes.contains(userId));
+
+        return found[0];
+    }
+
+    private Film read(int id) {
+        return read(id, true);
+    }
+
+    private Film read(int id, boolean withLikes) {
+        return films.read(id, record -> record == null ? null : record.toFilm(id, withLikes));
+    }
+
+    private static final class FilmRecord {
+        private String name;
+        private String description;
+        private LocalDate releaseDate;
+        private Integer duration;
+        private int rate;
+        private Mpa mpa;
+        private final IdSet likes = new IdSet();
+
+        private void update(Film film, Mpa mpa) {
+            this.name = film.getName();
+            this.description = film.getDescription();
+            this.releaseDate = film.getReleaseDate();
+            this.duration = film.getDuration();
+            this.rate = film.getRate();
+            this.mpa = mpa;
+        }
+
+        // Без лайков набор не копируется, число лайков берётся из его размера
+        private Film toFilm(int id, boolean withLikes) {
+            Film film = new Film(id, name, description, releaseDate, duration, rate, mpa, new ArrayList<>(),
+                    withLikes ? likes.copy() : null);
+            film.setLikeCount(likes.size());
+
+            return film;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
+import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * Справочник жанров и жанры фильмов для профиля memory. Жанры фильма хранятся отсортированным набором id,
+ * фильмы получают общие экземпляры Genre из справочника, как и в GenreDbStorage.
+ */
+@Component
+@Profile("memory")
+@Slf4j
+public class InMemoryGenreStorage implements GenreStorage {
+
+    private static final List<Genre> DEFAULTS = List.of(
+            new Genre(1, "Комедия"),
+            new Genre(2, "Драма"),
+            new Genre(3, "Мультфильм"),
+            new Genre(4, "Триллер"),
+            new Genre(5, "Документальный"),
+            new Genre(6, "Боевик"));
+
+    private volatile Map<Integer, Genre> genresById = Collections.emptyMap();
+
+    private final StripedIntMap<IntSortedSet> genresByFilm = new StripedIntMap<>();
+
+    @PostConstruct
+    @Override
+    public void reload() {
+        Map<Integer, Genre> loaded = new LinkedHashMap<>();
+        for (Genre genre : DEFAULTS) {
+            loaded.put(genre.getId(), new Genre(genre.getId(), genre.getName()));
+        }
+        genresById = Collections.unmodifiableMap(loaded);
+        log.info("Справочник жанров загружен: {} записей", loaded.size());
+    }
+
+    @Override
+    public List<Genre> findAll() {
+        return new ArrayList<>(genresById.values());
+    }
+
+    @Override
+    public Genre findById(int genreId) {
+        Genre genre = genresById.get(genreId);
+        if (genre == null) {
+            throw new NotFoundException(String.format("Жанр с id: '%d' не найден", genreId));
+        }
+
+        return genre;
+    }
+
+    @Override
+    public List<Genre> getGenresByFilmId(int filmId) {
+        return genresByFilm.read(filmId, this::toGenres);
+    }
+
+    @Override
+    public boolean addFilmGenres(int filmId, Collection<Genre> genres) {
+        IntSortedSet genreIds = toGenreIds(genres);
+        genresByFilm.writeOrCreate(filmId, key -> new IntRBTreeSet(), current -> current.addAll(genreIds));
+
+        return true;
+    }
+
+    @Override
+    public List<Genre> updateFilmGenres(int filmId, Collection<Genre> genres) {
+        IntSortedSet genreIds = toGenreIds(genres);
+        List<Genre> result = toGenres(genreIds);
+        if (genreIds.isEmpty()) {
+            genresByFilm.remove(filmId);
+        } else {
+            genresByFilm.put(filmId, genreIds);
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean deleteFilmGenres(int filmId) {
+        genresByFilm.remove(filmId);
+
+        return true;
+    }
+
+    @Override
+    public void loadFilmGenres(Collection<Film> films) {
+        for (Film film : films) {
+            film.setGenres(getGenresByFilmId(film.getId()));
+        }
+    }
+
+    @Override
+    public void loadAllFilmGenres(Collection<Film> films) {
+        loadFilmGenres(films);
+    }
+
+    private IntSortedSet toGenreIds(Collection<Genre> genres) {
+        IntSortedSet genreIds = new IntRBTreeSet();
+        for (Genre genre : genres) {
+            genreIds.add(findById(genre.getId()).getId());
+        }
+
+        return genreIds;
+    }
+
+    private List<Genre> toGenres(IntSortedSet genreIds) {
+        List<Genre> genres = new ArrayList<>();
+        if (genreIds == null) {
+            return genres;
+        }
+        for (IntIterator iterator = genreIds.iterator(); iterator.hasNext(); ) {
+            genres.add(findById(iterator.nextInt()));
+        }
+
+        return genres;
+    }
+}
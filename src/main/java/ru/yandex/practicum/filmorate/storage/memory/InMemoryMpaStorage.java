@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.MpaStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * Справочник рейтингов MPA для профиля memory. Значения те же, что в data.sql.
+ */
+@Component
+@Profile("memory")
+@Slf4j
+public class InMemoryMpaStorage implements MpaStorage {
+
+    private static final List<Mpa> DEFAULTS = List.of(
+            new Mpa(1, "G", "Нет возрастных ограничений"),
+            new Mpa(2, "PG", "Рекомендуется присутствие родителей"),
+            new Mpa(3, "PG-13", "Детям до 13 лет просмотр не желателен"),
+            new Mpa(4, "R", "Лицам до 17 лет обязательно присутствие взрослого"),
+            new Mpa(5, "NC-17", "Лицам до 18 лет просмотр запрещен"));
+
+    private volatile Map<Integer, Mpa> mpaById = Collections.emptyMap();
+
+    @PostConstruct
+    @Override
+    public void reload() {
+        Map<Integer, Mpa> loaded = new LinkedHashMap<>();
+        for (Mpa mpa : DEFAULTS) {
+            loaded.put(mpa.getId(), new Mpa(mpa.getId(), mpa.getName(), mpa.getDescription()));
+        }
+        mpaById = Collections.unmodifiableMap(loaded);
+        log.info("Справочник MPA загружен: {} записей", loaded.size());
+    }
+
+    @Override
+    public List<Mpa> findAll() {
+        return new ArrayList<>(mpaById.values());
+    }
+
+    @Override
+    public Mpa findById(int mpaId) {
+        Mpa mpa = mpaById.get(mpaId);
+        if (mpa == null) {
+            throw new NotFoundException(String.format("Возрастной рейтинг с id: '%d' не найден", mpaId));
+        }
+
+        return mpa;
+    }
+}
@@ -0,0 +1,247 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище пользователей в памяти для профиля memory. Друзья хранятся сжатым набором id в записи пользователя,
+ * дружба односторонняя, как строки FRIENDSHIP в UserDbStorage.
+ */
+@Component("InMemoryUserStorage")
+@Profile("memory")
+@RequiredArgsConstructor
+public class InMemoryUserStorage implements UserStorage {
+
+    private final InMemoryFilmStorage filmStorage;
+
+    private final StripedIntMap<UserRecord> users = new StripedIntMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    @Override
+    public User create(User user) {
+        int id = lastId.incrementAndGet();
+        UserRecord record = new UserRecord();
+        record.update(user);
+        if (user.getFriends() != null) {
+            for (Integer friendId : user.getFriends()) {
+                record.friends.add(friendId.intValue());
+            }
+        }
+        users.put(id, record);
+
+        return findById(id).orElseThrow(() ->
+                new NotFoundException(String.format("Ошибка при создании пользователя с id=%d", id)));
+    }
+
+    @Override
+    public User update(User user) {
+        users.write(user.getId(), record -> {
+            if (record == null) {
+                throw new NotFoundException(String.format("Ошибка при обновлении пользователя с id=%d", user.getId()));
+            }
+            record.update(user);
+            return record;
+        });
+
+        return findById(user.getId()).orElseThrow(() ->
+                new NotFoundException(String.format("Ошибка при обновлении пользователя с id=%d", user.getId())));
+    }
+
+    @Override
+    public Optional<User> findById(Integer id) {
+        User user = read(id);
+        if (user == null) {
+            throw new NotFoundException("HTTP ERROR 404: Пользователь с id: '" +
+                    id + "' не зарегистрирован!");
+        }
+
+        return Optional.of(user);
+    }
+
+    @Override
+    public User deleteById(Integer id) {
+        User user = findById(id).orElseThrow(() ->
+                new NotFoundException(String.format("Ошибка при удалении пользователя с id=%d", id)));
+        delete(id);
+
+        return user;
+    }
+
+    @Override
+    public User findUser(Integer id, boolean withFriends) {
+        User user = read(id, withFriends);
+        if (user == null) {
+            throw new NotFoundException("Пользователь с id: " +
+                    id + " не зарегистрирован!");
+        }
+
+        return user;
+    }
+
+    @Override
+    public Map<Integer, User> findUsers() {
+        Map<Integer, User> result = new HashMap<>();
+        users.forEach((record, id) -> result.put(id, record.toUser(id, true)));
+
+        return result;
+    }
+
+    @Override
+    public List<User> findAll(boolean withFriends) {
+        return findPage(0, Integer.MAX_VALUE, withFriends);
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit, boolean withFriends) {
+        List<User> page = new ArrayList<>();
+        int last = lastId.get();
+        for (int id = afterId + 1; id > 0 && id <= last && page.size() < limit; id++) {
+            User user = read(id, withFriends);
+            if (user != null) {
+                page.add(user);
+            }
+        }
+
+        return page;
+    }
+
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        int last = lastId.get();
+        for (int id = 1; id <= last; id++) {
+            User user = read(id);
+            if (user != null) {
+                consumer.accept(user);
+            }
+        }
+    }
+
+    @Override
+    public List<User> findFriends(int userId, boolean withFriends) {
+        return readUsers(users.read(userId, record -> record == null ? new int[0] : record.friends.toIntArray()),
+                withFriends);
+    }
+
+    @Override
+    public List<User> findCommonFriends(int userId, int otherId, boolean withFriends) {
+        IdSet friends = users.read(userId, record -> record == null ? new IdSet() : record.friends.copy());
+        IdSet common = users.read(otherId, record -> record == null ? new IdSet() : record.friends.and(friends));
+
+        return readUsers(common.toIntArray(), withFriends);
+    }
+
+    @Override
+    public boolean deleteUser(User user) {
+        return delete(user.getId());
+    }
+
+    // Возвращает true, если встречная заявка уже есть, как UserDbStorage
+    @Override
+    public boolean addFriendship(Integer userId, Integer friendId) {
+        users.write(userId, record -> {
+            if (record == null) {
+                throw new NotFoundException("HTTP ERROR 404: Пользователь с id: '" +
+                        userId + "' не зарегистрирован!");
+            }
+            return record.friends.add(friendId.intValue());
+        });
+
+        return users.read(friendId, record -> record != null && record.friends.contains(userId.intValue()));
+    }
+
+    @Override
+    public boolean removeFriendship(Integer userId, Integer friendId) {
+        return users.write(userId, record -> record != null && record.friends.remove(friendId.intValue()));
+    }
+
+    @Override
+    public boolean isNotExist(int id) {
+        return !users.containsKey(id);
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> userIds) {
+        Set<Integer> existing = new HashSet<>();
+        for (Integer userId : userIds) {
+            if (userId != null && users.containsKey(userId)) {
+                existing.add(userId);
+            }
+        }
+
+        return existing;
+    }
+
+    // Вместе с пользователем удаляются и заявки в друзья к нему. Пользователь с лайками не удаляется:
+    // в базе это запрещает внешний ключ fk_Like_UserID, и хранилище в памяти ведёт себя так же
+    private boolean delete(int id) {
+        if (filmStorage.hasLikesFrom(id)) {
+            throw new DataIntegrityViolationException(
+                    String.format("Пользователь с id=%d поставил лайки и не может быть удалён", id));
+        }
+        if (users.remove(id) == null) {
+            return false;
+        }
+        List<Integer> followers = new ArrayList<>();
+        users.forEach((record, userId) -> {
+            if (record.friends.contains(id)) {
+                followers.add(userId);
+            }
+        });
+        for (Integer follower : followers) {
+            users.write(follower, record -> record != null && record.friends.remove(id));
+        }
+
+        return true;
+    }
+
+    private User read(int id) {
+        return read(id, true);
+    }
+
+    private User read(int id, boolean withFriends) {
+        return users.read(id, record -> record == null ? null : record.toUser(id, withFriends));
+    }
+
+    // Набор отдаёт id по возрастанию, поэтому сортировать не нужно
+    private List<User> readUsers(int[] userIds, boolean withFriends) {
+        List<User> result = new ArrayList<>(userIds.length);
+        for (int userId : userIds) {
+            User user = read(userId, withFriends);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+
+        return result;
+    }
+
+    private static final class UserRecord {
+        private String email;
+        private String login;
+        private String name;
+        private LocalDate birthday;
+        private final IdSet friends = new IdSet();
+
+        private void update(User user) {
+            this.email = user.getEmail();
+            this.login = user.getLogin();
+            this.name = user.getName();
+            this.birthday = user.getBirthday();
+        }
+
+        private User toUser(int id, boolean withFriends) {
+            return new User(id, email, login, name, birthday, withFriends ? friends.copy() : null);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Map с ключами int без упаковки в Integer, разбитая на сегменты со своим ReadWriteLock.
+ * Записи по разным сегментам не мешают друг другу, чтения одного сегмента идут параллельно.
+ * Изменяемые значения можно читать и менять только внутри {@link #read} и {@link #write}.
+ */
+final class StripedIntMap<V> {
+
+    private static final int STRIPES = 64;
+
+    private final Segment<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    StripedIntMap() {
+        segments = new Segment[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    // Функции передаётся значение или null, если ключа нет
+    <R> R read(int key, Function<V, R> reader) {
+        Segment<V> segment = segment(key);
+        segment.lock.readLock().lock();
+        try {
+            return reader.apply(segment.values.get(key));
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+
+    <R> R write(int key, Function<V, R> writer) {
+        Segment<V> segment = segment(key);
+        segment.lock.writeLock().lock();
+        try {
+            return writer.apply(segment.values.get(key));
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    // Как write, но отсутствующее значение сначала создаётся и кладётся в map
+    <R> R writeOrCreate(int key, IntFunction<V> factory, Function<V, R> writer) {
+        Segment<V> segment = segment(key);
+        segment.lock.writeLock().lock();
+        try {
+            V value = segment.values.get(key);
+            if (value == null) {
+                value = factory.apply(key);
+                segment.values.put(key, value);
+            }
+            return writer.apply(value);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    boolean containsKey(int key) {
+        return read(key, value -> value != null);
+    }
+
+    void put(int key, V value) {
+        Segment<V> segment = segment(key);
+        segment.lock.writeLock().lock();
+        try {
+            segment.values.put(key, value);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    V remove(int key) {
+        Segment<V> segment = segment(key);
+        segment.lock.writeLock().lock();
+        try {
+            return segment.values.remove(key);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    // Обход идёт по сегментам, снимка всей map он не даёт
+    void forEach(ObjIntConsumer<V> action) {
+        for (Segment<V> segment : segments) {
+            segment.lock.readLock().lock();
+            try {
+                for (Int2ObjectMap.Entry<V> entry : segment.values.int2ObjectEntrySet()) {
+                    action.accept(entry.getValue(), entry.getIntKey());
+                }
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+    }
+
+    void clear() {
+        for (Segment<V> segment : segments) {
+            segment.lock.writeLock().lock();
+            try {
+                segment.values.clear();
+            } finally {
+                segment.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Segment<V> segment(int key) {
+        return segments[key & (STRIPES - 1)];
+    }
+
+    private static final class Segment<V> {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Int2ObjectMap<V> values = new Int2ObjectOpenHashMap<>();
+    }
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.storage.reactive;
+
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Неблокирующее чтение фильмов через R2DBC. Фильмы отдаются по мере чтения строк,
+ * лайки и жанры подгружаются одним запросом на пачку фильмов, как в FilmDbStorage.streamAll.
+ * Как и там, запросы пачки идут через соединение курсора: чтение обёрнуто в транзакцию.
+ * MPA и жанры берутся из справочников в памяти, поэтому в базу за ними не ходим.
+ */
+@Component
+@Profile("!memory")
+@RequiredArgsConstructor
+public class ReactiveFilmStorage {
+
+    static final int BATCH_SIZE = 500;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator readTransaction;
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+
+    public Mono<Film> findById(int filmId) {
+        return databaseClient.sql("SELECT * FROM FILMS WHERE FILM_ID = :id")
+                .bind("id", filmId)
+                .map(this::makeFilm)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new NotFoundException(
+                        String.format("HTTP ERROR 404: Фильма с id=%d нет в базе данных", filmId))))
+                .flatMap(film -> fillBatch(List.of(film)).next())
+                .as(readTransaction::transactional);
+    }
+
+    public Flux<Film> findAll() {
+        return withDetails(databaseClient.sql("SELECT * FROM FILMS ORDER BY FILM_ID")
+                .map(this::makeFilm)
+                .all());
+    }
+
+    public Flux<Film> findPage(int afterId, int limit) {
+        return withDetails(databaseClient.sql("SELECT * FROM FILMS WHERE FILM_ID > :after ORDER BY FILM_ID LIMIT :limit")
+                .bind("after", afterId)
+                .bind("limit", limit)
+                .map(this::makeFilm)
+                .all());
+    }
+
+    // Порядок результата - порядок filmIds; отсутствующие в базе id пропускаются
+    public Flux<Film> findByIds(List<Integer> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql("SELECT * FROM FILMS WHERE FILM_ID IN (:ids)")
+                .bind("ids", filmIds)
+                .map(this::makeFilm)
+                .all()
+                .collectMap(Film::getId)
+                .flatMapIterable(filmsById -> {
+                    List<Film> films = new ArrayList<>(filmIds.size());
+                    for (Integer filmId : filmIds) {
+                        Film film = filmsById.get(filmId);
+                        if (film != null) {
+                            films.add(film);
+                        }
+                    }
+                    return films;
+                })
+                .transform(this::withDetails);
+    }
+
+    private Flux<Film> withDetails(Flux<Film> films) {
+        return films.buffer(BATCH_SIZE).concatMap(this::fillBatch).as(readTransaction::transactional);
+    }
+
+    private Flux<Film> fillBatch(List<Film> films) {
+        Map<Integer, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+        Mono<Void> likes = databaseClient.sql("SELECT FILM_ID, USER_ID FROM LIKES WHERE FILM_ID IN (:ids)")
+                .bind("ids", filmsById.keySet())
+                .map(row -> new int[]{row.get("FILM_ID", Integer.class), row.get("USER_ID", Integer.class)})
+                .all()
+                .doOnNext(like -> filmsById.get(like[0]).getLikes().add(like[1]))
+                .then();
+        Mono<Void> genres = databaseClient.sql("SELECT FILM_ID, GENRE_ID FROM FILM_GENRE " +
+                        "WHERE FILM_ID IN (:ids) " +
+                        "ORDER BY FILM_ID, GENRE_ID")
+                .bind("ids", filmsById.keySet())
+                .map(row -> new int[]{row.get("FILM_ID", Integer.class), row.get("GENRE_ID", Integer.class)})
+                .all()
+                .doOnNext(genre -> filmsById.get(genre[0]).getGenres().add(genreStorage.findById(genre[1])))
+                .then();
+
+        return likes.then(genres).thenMany(Flux.fromIterable(films));
+    }
+
+    private Film makeFilm(Row row) {
+        Integer rate = row.get("RATE", Integer.class);
+        Integer likeCount = row.get("LIKE_COUNT", Integer.class);
+
+        Film film = new Film(
+                Objects.requireNonNull(row.get("FILM_ID", Integer.class)),
+                row.get("FILM_NAME", String.class),
+                row.get("DESCRIPTION", String.class),
+                row.get("RELEASE_DATE", LocalDate.class),
+                row.get("DURATION", Integer.class),
+                rate == null ? 0 : rate,
+                mpaStorage.findById(Objects.requireNonNull(row.get("RATING_ID", Integer.class))),
+                new ArrayList<>(),
+                new IdSet()
+        );
+        film.setLikeCount(likeCount == null ? 0 : likeCount);
+
+        return film;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.storage.reactive;
+
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.IdSet;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Неблокирующее чтение пользователей через R2DBC. Друзья подгружаются одним запросом на пачку пользователей
+ * через соединение курсора, поэтому чтение идёт в транзакции.
+ */
+@Component
+@Profile("!memory")
+@RequiredArgsConstructor
+public class ReactiveUserStorage {
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator readTransaction;
+
+    // Пользователь проверяется до первой строки ответа, поэтому 404 ещё можно отдать обычным ответом
+    public Flux<User> findFriends(int userId) {
+        Mono<Integer> existing = databaseClient.sql("SELECT USER_ID FROM USERS WHERE USER_ID = :id")
+                .bind("id", userId)
+                .map(row -> row.get("USER_ID", Integer.class))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new NotFoundException(
+                        String.format("Пользователь с id: '%d' не зарегистрирован!", userId))));
+
+        return existing.thenMany(databaseClient.sql("SELECT USERS.* FROM FRIENDSHIP " +
+                                "INNER JOIN USERS ON USERS.USER_ID = FRIENDSHIP.FRIEND_ID " +
+                                "WHERE FRIENDSHIP.USER_ID = :id " +
+                                "ORDER BY USERS.USER_ID")
+                        .bind("id", userId)
+                        .map(this::makeUser)
+                        .all())
+                .buffer(ReactiveFilmStorage.BATCH_SIZE)
+                .concatMap(this::fillBatch)
+                .as(readTransaction::transactional);
+    }
+
+    private Flux<User> fillBatch(List<User> users) {
+        Map<Integer, User> usersById = new HashMap<>();
+        for (User user : users) {
+            usersById.put(user.getId(), user);
+        }
+
+        return databaseClient.sql("SELECT USER_ID, FRIEND_ID FROM FRIENDSHIP WHERE USER_ID IN (:ids)")
+                .bind("ids", usersById.keySet())
+                .map(row -> new int[]{row.get("USER_ID", Integer.class), row.get("FRIEND_ID", Integer.class)})
+                .all()
+                .doOnNext(friendship -> usersById.get(friendship[0]).getFriends().add(friendship[1]))
+                .thenMany(Flux.fromIterable(users));
+    }
+
+    private User makeUser(Row row) {
+        return new User(
+                Objects.requireNonNull(row.get("USER_ID", Integer.class)),
+                row.get("EMAIL", String.class),
+                row.get("LOGIN", String.class),
+                row.get("USER_NAME", String.class),
+                row.get("BIRTHDAY", LocalDate.class),
+                new IdSet());
+    }
+}
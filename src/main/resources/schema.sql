@@ -7,6 +7,7 @@ CREATE TABLE IF NOT EXISTS FILMS
     DURATION     INT          NOT NULL,
     RATE         INT,
     RATING_ID    INT          NOT NULL,
+    LIKE_COUNT   INT          NOT NULL DEFAULT 0,
     CONSTRAINT pk_Film PRIMARY KEY (FILM_ID)
 );
 
@@ -63,6 +64,11 @@ CREATE TABLE IF NOT EXISTS RATING_MPA
     CONSTRAINT uc_RatingMPA_Name UNIQUE (MPA_NAME)
 );
 
+ALTER TABLE FILMS
+    ADD COLUMN IF NOT EXISTS LIKE_COUNT INT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS IDX_Films_LikeCount ON FILMS (LIKE_COUNT DESC, FILM_ID);
+
 ALTER TABLE FILMS
     ADD CONSTRAINT IF NOT EXISTS fk_Film_RatingID FOREIGN KEY (RATING_ID)
         REFERENCES RATING_MPA (RATING_ID) ON DELETE RESTRICT;
@@ -75,6 +81,25 @@ ALTER TABLE LIKES
     ADD CONSTRAINT IF NOT EXISTS fk_Like_UserID FOREIGN KEY (USER_ID)
         REFERENCES USERS (USER_ID);
 
+-- Дубли лайков от прежней гонки проверки и вставки: без их удаления уникальный ключ не создастся.
+-- Из каждой пары (USER_ID, FILM_ID) остаётся строка с наименьшим LIKE_ID
+DELETE
+FROM LIKES
+WHERE EXISTS (SELECT 1
+              FROM LIKES D
+              WHERE D.USER_ID = LIKES.USER_ID
+                AND D.FILM_ID = LIKES.FILM_ID
+                AND D.LIKE_ID < LIKES.LIKE_ID);
+
+ALTER TABLE LIKES
+    ADD CONSTRAINT IF NOT EXISTS UC_Like_UserID_FilmID UNIQUE (USER_ID, FILM_ID);
+
+-- Счётчик заполняется по LIKES при каждом старте: в существующей базе колонка появляется с нулями,
+-- а рейтинг популярных строится из неё сразу после запуска. Обновляются только расходящиеся строки
+UPDATE FILMS
+SET LIKE_COUNT = (SELECT COUNT(*) FROM LIKES L WHERE L.FILM_ID = FILMS.FILM_ID)
+WHERE LIKE_COUNT <> (SELECT COUNT(*) FROM LIKES L WHERE L.FILM_ID = FILMS.FILM_ID);
+
 ALTER TABLE FRIENDSHIP
     ADD CONSTRAINT IF NOT EXISTS fk_Friendship_UserID FOREIGN KEY (USER_ID)
         REFERENCES USERS (USER_ID);
@@ -92,4 +117,12 @@ ALTER TABLE FILM_GENRE
         REFERENCES GENRES (GENRE_ID) ON DELETE RESTRICT;
 
 ALTER TABLE FILM_GENRE
-    ADD CONSTRAINT IF NOT EXISTS UC_Film_Genre_GenreID_FilmID UNIQUE (GENRE_ID, FILM_ID)
\ No newline at end of file
+    ADD CONSTRAINT IF NOT EXISTS UC_Film_Genre_GenreID_FilmID UNIQUE (GENRE_ID, FILM_ID);
+
+CREATE INDEX IF NOT EXISTS IDX_Likes_FilmID_UserID ON LIKES (FILM_ID, USER_ID);
+
+CREATE INDEX IF NOT EXISTS IDX_Friendship_UserID_FriendID ON FRIENDSHIP (USER_ID, FRIEND_ID);
+
+CREATE INDEX IF NOT EXISTS IDX_Friendship_FriendID ON FRIENDSHIP (FRIEND_ID);
+
+CREATE INDEX IF NOT EXISTS IDX_Film_Genre_FilmID_GenreID ON FILM_GENRE (FILM_ID, GENRE_ID);
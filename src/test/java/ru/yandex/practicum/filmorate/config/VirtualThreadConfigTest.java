@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// На JVM без виртуальных потоков контекст с этим режимом не поднимается, поэтому класс пропускается целиком
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "filmorate.threads.virtual=true")
+@AutoConfigureTestDatabase
+@EnabledIf("virtualThreadsAvailable")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class VirtualThreadConfigTest {
+
+    private final TestRestTemplate restTemplate;
+    private final ServletWebServerApplicationContext context;
+
+    static boolean virtualThreadsAvailable() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    @Test
+    public void requestsAreServedTest() {
+        assertThat(restTemplate.getForEntity("/genres", String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(restTemplate.getForEntity("/films/popular", String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void tomcatRunsRequestsOnVirtualThreadsTest() throws Exception {
+        Executor executor = ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector()
+                .getProtocolHandler().getExecutor();
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        executor.execute(() -> thread.complete(Thread.currentThread()));
+        Thread worker = thread.get(5, TimeUnit.SECONDS);
+
+        assertThat(Thread.class.getMethod("isVirtual").invoke(worker)).isEqualTo(true);
+        assertThat(worker.getName()).startsWith("http-virtual-");
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static ru.yandex.practicum.filmorate.metrics.SqlStatementCountMatchers.sqlStatements;
+
+// Кэш фильмов выключен, чтобы обычный ответ по популярным точно шёл в базу
+@SpringBootTest(properties = "filmorate.cache.films.max-size=0")
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ConditionalGetTest {
+
+    private final MockMvc mockMvc;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final GenreService genreService;
+
+    @Test
+    public void popularIsNotModifiedWithoutStorageAccessTest() throws Exception {
+        createFilm();
+        String etag = etagOf("/films/popular");
+
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""))
+                .andExpect(sqlStatements().atMost(0));
+    }
+
+    @Test
+    public void likeChangesPopularEtagTest() throws Exception {
+        Film film = createFilm();
+        User user = userService.create(new User(0, "etag@ya.ru", "etag", "Etag",
+                LocalDate.of(1990, 1, 1), new ArrayList<>()));
+        String etag = etagOf("/films/popular");
+
+        filmService.addLike(film.getId(), user.getId());
+
+        String changed = mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(etag);
+    }
+
+    @Test
+    public void dictionariesAreNotModifiedTest() throws Exception {
+        String genres = etagOf("/genres");
+        String mpa = etagOf("/mpa");
+
+        mockMvc.perform(get("/genres").header(HttpHeaders.IF_NONE_MATCH, genres))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/mpa").header(HttpHeaders.IF_NONE_MATCH, mpa))
+                .andExpect(status().isNotModified());
+
+        genreService.reload();
+
+        mockMvc.perform(get("/genres").header(HttpHeaders.IF_NONE_MATCH, genres))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/mpa").header(HttpHeaders.IF_NONE_MATCH, mpa))
+                .andExpect(status().isNotModified());
+    }
+
+    private String etagOf(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private Film createFilm() {
+        return filmService.create(new Film(0, "etag", "film description", LocalDate.of(2000, 1, 1), 100, 5,
+                new Mpa(1, "G", null), new ArrayList<>(), new ArrayList<>()));
+    }
+}
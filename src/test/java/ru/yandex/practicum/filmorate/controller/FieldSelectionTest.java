@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FieldSelectionTest {
+
+    private final MockMvc mockMvc;
+    private final FilmService filmService;
+    private final UserService userService;
+
+    private static int counter = 0;
+
+    private User user;
+    private User friend;
+    private Film film;
+
+    @BeforeEach
+    public void addData() {
+        user = createUser();
+        friend = createUser();
+        userService.addFriendship(String.valueOf(user.getId()), String.valueOf(friend.getId()));
+        film = filmService.create(new Film(0, "fields" + counter, "film description",
+                LocalDate.of(2000, 1, 1), 100, 5, new Mpa(1, "G", null), new ArrayList<>(), new ArrayList<>()));
+        filmService.addLike(film.getId(), user.getId());
+        filmService.addLike(film.getId(), friend.getId());
+    }
+
+    @Test
+    public void likesAreReplacedByCountByDefaultTest() throws Exception {
+        mockMvc.perform(get("/films/{id}", film.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likeCount").value(2))
+                .andExpect(jsonPath("$.likes").doesNotExist());
+        mockMvc.perform(get("/films?after={after}&limit=1", film.getId() - 1))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(CursorPage.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$[0].likeCount").value(2))
+                .andExpect(jsonPath("$[0].likes").doesNotExist());
+    }
+
+    @Test
+    public void likesAreExpandedOnRequestTest() throws Exception {
+        mockMvc.perform(get("/films?after={after}&limit=1&expand=likes", film.getId() - 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].likes", containsInAnyOrder(user.getId(), friend.getId())))
+                .andExpect(jsonPath("$[0].likeCount").value(2));
+        mockMvc.perform(get("/films/popular?count=1&fields=id,likes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].likes").isArray())
+                .andExpect(jsonPath("$[0].name").doesNotExist());
+    }
+
+    @Test
+    public void onlyRequestedFieldsAreSentTest() throws Exception {
+        mockMvc.perform(get("/films/{id}?fields=id,likeCount", film.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(2)))
+                .andExpect(jsonPath("$.id").value(film.getId()))
+                .andExpect(jsonPath("$.likeCount").value(2));
+        mockMvc.perform(get("/users/{id}?fields=login", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(1)))
+                .andExpect(jsonPath("$.login").value(user.getLogin()));
+    }
+
+    @Test
+    public void friendsAreSentOnlyOnRequestTest() throws Exception {
+        mockMvc.perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.friends").doesNotExist());
+        mockMvc.perform(get("/users/{id}?expand=friends", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.friends", contains(friend.getId())));
+        mockMvc.perform(get("/users?after={after}&limit=1&expand=friends", user.getId() - 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].friends", contains(friend.getId())));
+        mockMvc.perform(get("/users/{id}/friends", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(friend.getId()))
+                .andExpect(jsonPath("$[0].friends").doesNotExist());
+    }
+
+    @Test
+    public void unknownExpandIsBadRequestTest() throws Exception {
+        mockMvc.perform(get("/films?expand=friends"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Ответы без своего фильтра пишутся целиком
+    @Test
+    public void exportKeepsLikesTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/films/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .contains("\"likes\":[" + user.getId() + "," + friend.getId() + "]");
+    }
+
+    private User createUser() {
+        counter++;
+
+        return userService.create(new User(0, "fields" + counter + "@ya.ru", "fields" + counter,
+                "Fields" + counter, LocalDate.of(1990, 1, 1), new ArrayList<>()));
+    }
+}
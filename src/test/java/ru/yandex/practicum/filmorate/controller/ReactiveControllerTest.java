@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ReactiveFilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// R2DBC подключается по spring.datasource.url, поэтому база задаётся явно, а не через @AutoConfigureTestDatabase
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+@AutoConfigureMockMvc
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReactiveControllerTest {
+
+    private final MockMvc mockMvc;
+    private final FilmService filmService;
+    private final ReactiveFilmService reactiveFilmService;
+    private final UserService userService;
+
+    private static int counter = 0;
+
+    private User user;
+    private Film liked;
+
+    @BeforeEach
+    public void addData() {
+        user = createUser();
+        User friend = createUser();
+        userService.addFriendship(String.valueOf(user.getId()), String.valueOf(friend.getId()));
+        liked = filmService.create(new Film(0, "reactive" + counter, "film description",
+                LocalDate.of(2000, 1, 1), 100, 5, new Mpa(1, "G", null),
+                new ArrayList<>(List.of(new Genre(1, null), new Genre(2, null))), new ArrayList<>()));
+        filmService.addLike(liked.getId(), user.getId());
+        filmService.addLike(liked.getId(), friend.getId());
+    }
+
+    @Test
+    public void findByIdReadsLikesAndGenresTest() throws Exception {
+        mockMvc.perform(asyncDispatch(start(get("/reactive/films/{id}", liked.getId()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(liked.getId()))
+                .andExpect(jsonPath("$.mpa.name").value("G"))
+                .andExpect(jsonPath("$.genres[*].id", contains(1, 2)))
+                .andExpect(jsonPath("$.likes", hasSize(2)));
+    }
+
+    // r2dbc-h2 выполняет запрос в подписавшемся потоке, и это должен быть не поток вызывающего
+    @Test
+    public void queriesRunOnDatabaseSchedulerTest() {
+        String thread = reactiveFilmService.findById(liked.getId())
+                .map(film -> Thread.currentThread().getName())
+                .block();
+
+        assertThat(thread).startsWith("r2dbc-h2");
+    }
+
+    @Test
+    public void unknownFilmIsNotFoundTest() throws Exception {
+        mockMvc.perform(asyncDispatch(start(get("/reactive/films/{id}", Integer.MAX_VALUE))))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void pageMatchesBlockingControllerTest() throws Exception {
+        String blocking = mockMvc.perform(get("/films?limit=1000&expand=likes"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        mockMvc.perform(asyncDispatch(start(get("/reactive/films?limit=1000"))))
+                .andExpect(status().isOk())
+                .andExpect(content().json(blocking, true));
+    }
+
+    @Test
+    public void popularMatchesBlockingControllerTest() throws Exception {
+        String blocking = mockMvc.perform(get("/films/popular?count=3&expand=likes"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        mockMvc.perform(asyncDispatch(start(get("/reactive/films/popular?count=3"))))
+                .andExpect(status().isOk())
+                .andExpect(content().json(blocking, true));
+    }
+
+    @Test
+    public void allFilmsAreStreamedAsNdjsonTest() throws Exception {
+        MvcResult result = start(get("/reactive/films?all=true").accept(NdjsonExport.NDJSON));
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(filmService.getAll(false).size());
+        assertThat(result.getResponse().getContentType()).startsWith(NdjsonExport.NDJSON);
+    }
+
+    @Test
+    public void friendsAreReadTest() throws Exception {
+        mockMvc.perform(asyncDispatch(start(get("/reactive/users/{id}/friends", user.getId())
+                        .accept(MediaType.APPLICATION_JSON))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].friends", hasSize(0)));
+    }
+
+    @Test
+    public void friendsOfUnknownUserAreNotFoundTest() throws Exception {
+        mockMvc.perform(asyncDispatch(start(get("/reactive/users/{id}/friends", Integer.MAX_VALUE))))
+                .andExpect(status().isNotFound());
+    }
+
+    private MvcResult start(org.springframework.test.web.servlet.RequestBuilder request) throws Exception {
+        return mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private User createUser() {
+        counter++;
+
+        return userService.create(new User(0, "reactive" + counter + "@ya.ru", "reactive" + counter,
+                "Reactive" + counter, LocalDate.of(1990, 1, 1), new ArrayList<>()));
+    }
+}
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Без @AutoConfigureTestDatabase: тестовая база не пул, а метрики пула нужны от Hikari
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metrics;MODE=PostgreSQL")
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class MetricsTest {
+
+    private final MockMvc mockMvc;
+    private final MeterRegistry registry;
+
+    @Test
+    public void controllerRequestsAreTimedByHandlerTest() throws Exception {
+        mockMvc.perform(get("/films/popular")).andExpect(status().isOk());
+        mockMvc.perform(get("/genres")).andExpect(status().isOk());
+
+        Timer popular = registry.find("http.server.requests").tag("handler", "FilmController.getPopularFilms").timer();
+        Timer genres = registry.find("http.server.requests").tag("handler", "GenreController.findAll").timer();
+
+        assertThat(popular).isNotNull();
+        assertThat(popular.count()).isPositive();
+        assertThat(genres).isNotNull();
+    }
+
+    @Test
+    public void sqlStatementsAreTimedByDaoMethodTest() throws Exception {
+        mockMvc.perform(get("/users")).andExpect(status().isOk());
+
+        Timer findPage = registry.find(MeteredDataSource.SQL_TIMER)
+                .tag("dao", "UserDbStorage")
+                .tag("method", "findPage")
+                .timer();
+
+        assertThat(findPage).isNotNull();
+        assertThat(findPage.count()).isPositive();
+    }
+
+    @Test
+    public void connectionPoolGaugesAreRegisteredTest() {
+        assertThat(registry.find("hikaricp.connections.active").gauge()).isNotNull();
+    }
+}
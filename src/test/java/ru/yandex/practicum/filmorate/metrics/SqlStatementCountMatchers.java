@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверки числа SQL-запросов для MockMvc: {@code andExpect(sqlStatements().atMost(3))}.
+ * Число берётся из атрибута, который оставляет {@link SqlStatementCountFilter}, заголовок для этого не нужен.
+ */
+public final class SqlStatementCountMatchers {
+
+    private SqlStatementCountMatchers() {
+    }
+
+    public static SqlStatementCountMatchers sqlStatements() {
+        return new SqlStatementCountMatchers();
+    }
+
+    public ResultMatcher atMost(int max) {
+        return result -> assertThat(count(result.getRequest().getAttribute(SqlStatementCountFilter.COUNT_ATTRIBUTE)))
+                .as("SQL-запросов на %s %s", result.getRequest().getMethod(), result.getRequest().getRequestURI())
+                .isLessThanOrEqualTo(max);
+    }
+
+    private static int count(Object attribute) {
+        assertThat(attribute).as("SqlStatementCountFilter не сработал").isInstanceOf(Integer.class);
+
+        return (Integer) attribute;
+    }
+}
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.metrics.SqlStatementCountMatchers.sqlStatements;
+
+// Максимумы не зависят от размера данных: рост числа запросов вместе с выборкой и есть N+1
+@SpringBootTest(properties = {"filmorate.sql.count-header.enabled=true", "filmorate.cache.films.max-size=0"})
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class SqlStatementCountTest {
+
+    private static final int FILMS_QUERIES = 3;
+    private static final int POPULAR_QUERIES = 3;
+    private static final int FILM_QUERIES = 3;
+    private static final int FRIENDS_QUERIES = 2;
+    private static final int USER_QUERIES = 2;
+
+    private final MockMvc mockMvc;
+    private final FilmService filmService;
+    private final UserService userService;
+
+    private static int counter = 0;
+
+    private User user;
+    private Film film;
+
+    @BeforeEach
+    public void addData() {
+        user = createUser();
+        for (int i = 0; i < 5; i++) {
+            User friend = createUser();
+            userService.addFriendship(String.valueOf(user.getId()), String.valueOf(friend.getId()));
+            userService.addFriendship(String.valueOf(friend.getId()), String.valueOf(user.getId()));
+            film = filmService.create(new Film(0, "count" + counter, "film description",
+                    LocalDate.of(2000, 1, 1), 100, 5, new Mpa(1, "G", null),
+                    new ArrayList<>(List.of(new Genre(1, null), new Genre(2, null))), new ArrayList<>()));
+            filmService.addLike(film.getId(), user.getId());
+            filmService.addLike(film.getId(), friend.getId());
+        }
+    }
+
+    @Test
+    public void filmsQueryCountIsPinnedTest() throws Exception {
+        mockMvc.perform(get("/films?limit=100&expand=likes"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(FILMS_QUERIES));
+        mockMvc.perform(get("/films?all=true&expand=likes"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(FILMS_QUERIES));
+    }
+
+    // Без expand=likes таблица LIKES не читается
+    @Test
+    public void filmsWithoutLikesSkipLikesQueryTest() throws Exception {
+        mockMvc.perform(get("/films?limit=100"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(FILMS_QUERIES - 1));
+        mockMvc.perform(get("/films?all=true&fields=id,likeCount"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(FILMS_QUERIES - 1));
+    }
+
+    @Test
+    public void popularFilmsQueryCountIsPinnedTest() throws Exception {
+        mockMvc.perform(get("/films/popular?count=100&expand=likes"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(POPULAR_QUERIES));
+    }
+
+    @Test
+    public void popularFilmsWithoutLikesSkipLikesQueryTest() throws Exception {
+        mockMvc.perform(get("/films/popular?count=100"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(POPULAR_QUERIES - 1));
+    }
+
+    @Test
+    public void filmByIdQueryCountIsPinnedTest() throws Exception {
+        mockMvc.perform(get("/films/{id}?expand=likes", film.getId()))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(FILM_QUERIES));
+        mockMvc.perform(get("/films/{id}", film.getId()))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(FILM_QUERIES - 1));
+    }
+
+    @Test
+    public void userByIdQueryCountIsPinnedTest() throws Exception {
+        mockMvc.perform(get("/users/{id}?expand=friends", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(USER_QUERIES));
+        mockMvc.perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(USER_QUERIES - 1));
+    }
+
+    @Test
+    public void friendsQueryCountIsPinnedTest() throws Exception {
+        mockMvc.perform(get("/users/{id}/friends?expand=friends", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(FRIENDS_QUERIES));
+    }
+
+    @Test
+    public void friendsWithoutTheirFriendsSkipFriendshipQueryTest() throws Exception {
+        mockMvc.perform(get("/users/{id}/friends", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(FRIENDS_QUERIES - 1));
+    }
+
+    @Test
+    public void countIsSentInHeaderTest() throws Exception {
+        String count = mockMvc.perform(get("/users/{id}/friends", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlStatementCountFilter.COUNT_HEADER))
+                .andReturn().getResponse().getHeader(SqlStatementCountFilter.COUNT_HEADER);
+
+        assertThat(Integer.parseInt(count)).isPositive();
+    }
+
+    @Test
+    public void scopesAreNestedTest() throws Exception {
+        int[] inner = new int[1];
+        int outer = SqlStatementCounter.count(() -> inner[0] = SqlStatementCounter.count(() ->
+                userService.getUserById(String.valueOf(user.getId()))));
+
+        assertThat(inner[0]).isPositive();
+        assertThat(outer).isEqualTo(inner[0]);
+    }
+
+    private User createUser() {
+        counter++;
+
+        return userService.create(new User(0, "sqlcount" + counter + "@ya.ru", "sqlcount" + counter,
+                "Count" + counter, LocalDate.of(1990, 1, 1), new ArrayList<>()));
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DictionaryJsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // В запросе на создание фильма рейтинг и жанры обычно передаются только с id
+    @Test
+    public void readsMpaAndGenresWithIdOnlyTest() throws Exception {
+        Film film = objectMapper.readValue("{\"mpa\":{\"id\":3},\"genres\":[{\"id\":2},{\"id\":5}]}", Film.class);
+
+        assertThat(film.getMpa()).isEqualTo(new Mpa(3, null, null));
+        assertThat(film.getGenres()).containsExactly(new Genre(2, null), new Genre(5, null));
+    }
+
+    @Test
+    public void writesAndReadsSameValuesTest() throws Exception {
+        Mpa mpa = new Mpa(1, "G", "у фильма нет возрастных ограничений");
+        Genre genre = new Genre(1, "Комедия");
+
+        assertThat(objectMapper.readValue(objectMapper.writeValueAsString(mpa), Mpa.class)).isEqualTo(mpa);
+        assertThat(objectMapper.readValue(objectMapper.writeValueAsString(genre), Genre.class)).isEqualTo(genre);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdSetTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    public void membershipAndRemovalTest() {
+        IdSet ids = IdSet.of(5, 1, 3);
+
+        assertThat(ids.add(3)).isFalse();
+        assertThat(ids.add(2)).isTrue();
+        assertThat(ids.contains(2)).isTrue();
+        assertThat(ids.remove(5)).isTrue();
+        assertThat(ids.remove(5)).isFalse();
+        assertThat(ids).containsExactly(1, 2, 3);
+        assertThat(ids.and(IdSet.of(2, 3, 4))).containsExactly(2, 3);
+    }
+
+    @Test
+    public void copyIsIndependentTest() {
+        IdSet ids = IdSet.of(1, 2);
+        IdSet copy = ids.copy();
+        copy.add(3);
+
+        assertThat(ids).containsExactly(1, 2);
+        assertThat(copy.compact()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    public void filmJsonKeepsLikesArrayTest() throws Exception {
+        Film film = new Film(1, "name", "description", LocalDate.of(2000, 1, 1), 100, 5,
+                new Mpa(1, "G", null), new ArrayList<>(), List.of(7, 3));
+
+        String json = objectMapper.writeValueAsString(film);
+        Film read = objectMapper.readValue(json, Film.class);
+
+        assertThat(objectMapper.readTree(json).get("likes").toString()).isEqualTo("[3,7]");
+        assertThat(read.getLikes()).containsExactly(3, 7);
+    }
+
+    @Test
+    public void userJsonKeepsFriendsArrayTest() throws Exception {
+        User user = objectMapper.readValue("{\"login\":\"login\",\"friends\":[2,1]}", User.class);
+        User withoutFriends = objectMapper.readValue("{\"login\":\"login\"}", User.class);
+
+        assertThat(user.getFriends()).containsExactly(1, 2);
+        assertThat(objectMapper.readTree(objectMapper.writeValueAsString(user)).get("friends").toString())
+                .isEqualTo("[1,2]");
+        assertThat(withoutFriends.getFriends()).isNull();
+    }
+}
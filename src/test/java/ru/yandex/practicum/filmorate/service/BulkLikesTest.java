@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BulkLikesTest {
+
+    private final FilmService filmService;
+    private final FilmLeaderboard leaderboard;
+    private final UserDbStorage userStorage;
+    private final TransactionTemplate transactionTemplate;
+
+    @Test
+    public void addLikesReportsPerItemResultTest() {
+        Film film = filmService.create(new Film(0, "bulk", "film description", LocalDate.of(2000, 1, 1),
+                100, 5, new Mpa(1, "G", null), new ArrayList<>(), new ArrayList<>()));
+        User user1 = userStorage.create(new User(0, "bulk1@ya.ru", "bulk1", "Bulk1",
+                LocalDate.of(1990, 1, 1), new ArrayList<>()));
+        User user2 = userStorage.create(new User(0, "bulk2@ya.ru", "bulk2", "Bulk2",
+                LocalDate.of(1990, 1, 1), new ArrayList<>()));
+        filmService.addLike(film.getId(), user1.getId());
+
+        List<LikeResult> results = filmService.addLikes(List.of(
+                new LikeRequest(film.getId(), user1.getId()),
+                new LikeRequest(film.getId(), user2.getId()),
+                new LikeRequest(film.getId(), user2.getId()),
+                new LikeRequest(Integer.MAX_VALUE, user2.getId()),
+                new LikeRequest(film.getId(), Integer.MAX_VALUE)));
+
+        assertThat(results).extracting(LikeResult::getStatus).containsExactly(
+                LikeResult.Status.ALREADY_EXISTS,
+                LikeResult.Status.ADDED,
+                LikeResult.Status.ALREADY_EXISTS,
+                LikeResult.Status.FILM_NOT_FOUND,
+                LikeResult.Status.USER_NOT_FOUND);
+        assertThat(filmService.findById(film.getId()).getLikes()).containsExactlyInAnyOrder(user1.getId(), user2.getId());
+        assertThat(leaderboard.getLikes(film.getId())).isEqualTo(2);
+    }
+
+    @Test
+    public void rolledBackLikesDoNotReachLeaderboardTest() {
+        Film film = filmService.create(new Film(0, "rollback", "film description", LocalDate.of(2000, 1, 1),
+                100, 5, new Mpa(1, "G", null), new ArrayList<>(), new ArrayList<>()));
+        User user = userStorage.create(new User(0, "rollback@ya.ru", "rollback", "Rollback",
+                LocalDate.of(1990, 1, 1), new ArrayList<>()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            filmService.addLikes(List.of(new LikeRequest(film.getId(), user.getId())));
+            status.setRollbackOnly();
+        });
+
+        assertThat(filmService.findById(film.getId()).getLikes()).isEmpty();
+        assertThat(leaderboard.getLikes(film.getId())).isZero();
+    }
+
+    // Чтение из другого потока, пока пачка не зафиксирована, кладёт в кэш фильм без нового лайка
+    @Test
+    public void readDuringBulkTransactionDoesNotCacheStaleFilmTest() {
+        Film film = filmService.create(new Film(0, "interleaved", "film description", LocalDate.of(2000, 1, 1),
+                100, 5, new Mpa(1, "G", null), new ArrayList<>(), new ArrayList<>()));
+        User user = userStorage.create(new User(0, "interleaved@ya.ru", "interleaved", "Interleaved",
+                LocalDate.of(1990, 1, 1), new ArrayList<>()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            filmService.addLikes(List.of(new LikeRequest(film.getId(), user.getId())));
+            Film concurrent = CompletableFuture.supplyAsync(() -> filmService.findById(film.getId())).join();
+            assertThat(concurrent.getLikes()).isEmpty();
+        });
+
+        assertThat(filmService.findById(film.getId()).getLikes()).containsExactly(user.getId());
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmGenreValidationTest {
+
+    private static final int UNKNOWN_GENRE = 999;
+
+    private final FilmService filmService;
+    private final FilmLeaderboard leaderboard;
+
+    @Test
+    public void createWithUnknownGenreWritesNothingTest() {
+        int filmsBefore = filmService.getAll(false).size();
+
+        assertThatThrownBy(() -> filmService.create(film("unknown genre", UNKNOWN_GENRE)))
+                .isInstanceOf(NotFoundException.class);
+
+        assertThat(filmService.getAll(false)).hasSize(filmsBefore);
+        assertThat(leaderboard.getTop(Integer.MAX_VALUE)).hasSize(filmsBefore);
+    }
+
+    @Test
+    public void updateWithUnknownGenreKeepsFilmTest() {
+        Film film = filmService.create(film("genre kept", 1));
+        Film changed = film("genre changed", UNKNOWN_GENRE);
+        changed.setId(film.getId());
+
+        assertThatThrownBy(() -> filmService.update(changed)).isInstanceOf(NotFoundException.class);
+
+        Film stored = filmService.findById(film.getId());
+        assertThat(stored.getName()).isEqualTo("genre kept");
+        assertThat(stored.getGenres()).extracting(Genre::getId).containsExactly(1);
+    }
+
+    private Film film(String name, int genreId) {
+        return new Film(0, name, "film description", LocalDate.of(2000, 1, 1), 100, 5, new Mpa(1, "G", null),
+                new ArrayList<>(List.of(new Genre(genreId, null))), new ArrayList<>());
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmLeaderboardTest {
+
+    private final FilmService filmService;
+    private final FilmLeaderboard leaderboard;
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+
+    @Test
+    public void leaderboardMatchesSqlRatingTest() {
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            users.add(userStorage.create(new User(0, "top" + i + "@ya.ru", "top" + i, "Top" + i,
+                    LocalDate.of(1990, 1, 1), new ArrayList<>())));
+        }
+        Film first = createFilm("first");
+        Film second = createFilm("second");
+        Film third = createFilm("third");
+        for (User user : users) {
+            filmService.addLike(second.getId(), user.getId());
+            filmService.addLike(first.getId(), user.getId());
+        }
+        filmService.addLike(third.getId(), users.get(0).getId());
+        filmService.addLike(third.getId(), users.get(0).getId());
+        filmService.removeLike(first.getId(), users.get(2).getId());
+
+        List<Integer> sqlTop = filmStorage.findPopularFilms(3).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList());
+
+        assertThat(leaderboard.getTop(3)).containsExactly(second.getId(), first.getId(), third.getId());
+        assertThat(filmService.getPopularFilms(3)).extracting(Film::getId).isEqualTo(sqlTop);
+        assertThat(filmService.getPopularFilms(3)).extracting(film -> film.getLikes().size())
+                .containsExactly(3, 2, 1);
+
+        leaderboard.rebuild();
+
+        assertThat(leaderboard.getTop(3)).isEqualTo(sqlTop);
+    }
+
+    private Film createFilm(String name) {
+        return filmService.create(new Film(0, name, "film description", LocalDate.of(2000, 1, 1),
+                100, 5, new Mpa(1, "G", null), new ArrayList<>(), new ArrayList<>()));
+    }
+}
@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.cache.CachedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.likes.write-behind.flush-interval-ms=600000"
+})
+@AutoConfigureTestDatabase
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class LikeWriteBehindTest {
+
+    private final FilmService filmService;
+    private final FilmLeaderboard leaderboard;
+    private final LikeWriteBehindBuffer likeBuffer;
+    private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final CachedFilmStorage filmStorage;
+
+    private static int counter = 0;
+
+    @Test
+    public void bufferedLikesAreVisibleBeforeFlushTest() {
+        Film film = createFilm();
+        User user1 = createUser();
+        User user2 = createUser();
+
+        filmService.addLike(film.getId(), user1.getId());
+        filmService.addLike(film.getId(), user2.getId());
+
+        assertThat(countLikes(film.getId())).isZero();
+        assertThat(filmService.findById(film.getId()).getLikes())
+                .containsExactlyInAnyOrder(user1.getId(), user2.getId());
+        assertThat(leaderboard.getLikes(film.getId())).isEqualTo(2);
+
+        likeBuffer.flush();
+
+        assertThat(countLikes(film.getId())).isEqualTo(2);
+        assertThat(filmService.findById(film.getId()).getLikes())
+                .containsExactlyInAnyOrder(user1.getId(), user2.getId());
+    }
+
+    @Test
+    public void likeAndUnlikeCollapseBeforeFlushTest() {
+        Film film = createFilm();
+        User user = createUser();
+
+        filmService.addLike(film.getId(), user.getId());
+        filmService.addLike(film.getId(), user.getId());
+        filmService.removeLike(film.getId(), user.getId());
+
+        assertThat(filmService.findById(film.getId()).getLikes()).isEmpty();
+        assertThat(leaderboard.getLikes(film.getId())).isZero();
+
+        likeBuffer.flush();
+
+        assertThat(countLikes(film.getId())).isZero();
+    }
+
+    @Test
+    public void droppedOrphanLikeIsRemovedFromLeaderboardTest() {
+        Film film = createFilm();
+        User user = createUser();
+
+        filmService.addLike(film.getId(), user.getId());
+        userStorage.deleteById(user.getId());
+        likeBuffer.flush();
+
+        assertThat(countLikes(film.getId())).isZero();
+        assertThat(leaderboard.getLikes(film.getId())).isZero();
+    }
+
+    // Фильм прочитан до записи лайка: повторный лайк по нему проходит offer(), но в базе ничего не меняет
+    @Test
+    public void noOpEventIsRemovedFromLeaderboardTest() {
+        Film stale = filmService.findById(createFilm().getId());
+        User user = createUser();
+
+        offerLike(stale, user.getId());
+        likeBuffer.flush();
+        offerLike(stale, user.getId());
+        likeBuffer.flush();
+
+        assertThat(countLikes(stale.getId())).isEqualTo(1);
+        assertThat(leaderboard.getLikes(stale.getId())).isEqualTo(1);
+    }
+
+    // Фоновый поток не запущен, поэтому место в буфере освобождает только flush()
+    @Test
+    public void fullBufferBlocksCallerTest() throws Exception {
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(filmStorage, leaderboard, true, 600000, 10, 1);
+        Film film = filmService.findById(createFilm().getId());
+        User user1 = createUser();
+        User user2 = createUser();
+
+        assertThat(buffer.offer(film, user1.getId(), true)).isTrue();
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> buffer.offer(film, user2.getId(), true));
+        Thread.sleep(200);
+
+        assertThat(blocked).isNotDone();
+
+        buffer.flush();
+
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isTrue();
+        buffer.flush();
+        assertThat(countLikes(film.getId())).isEqualTo(2);
+    }
+
+    @Test
+    public void stopWritesAllPendingEventsTest() {
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(filmStorage, leaderboard, true, 600000, 2, 100);
+        buffer.start();
+        Film film = filmService.findById(createFilm().getId());
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(film, createUser().getId(), true);
+        }
+
+        buffer.stop();
+
+        assertThat(countLikes(film.getId())).isEqualTo(5);
+    }
+
+    // Как FilmService.addLike: рейтинг меняется, если буфер принял событие
+    private void offerLike(Film film, int userId) {
+        if (likeBuffer.offer(film, userId, true)) {
+            leaderboard.addLike(film.getId());
+        }
+    }
+
+    private int countLikes(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LIKES WHERE FILM_ID = ?", Integer.class, filmId);
+    }
+
+    private Film createFilm() {
+        return filmService.create(new Film(0, "buffered", "film description", LocalDate.of(2000, 1, 1),
+                100, 5, new Mpa(1, "G", null), new ArrayList<>(), new ArrayList<>()));
+    }
+
+    private User createUser() {
+        counter++;
+
+        return userStorage.create(new User(0, "buffer" + counter + "@ya.ru", "buffer" + counter,
+                "Buffer" + counter, LocalDate.of(1990, 1, 1), new ArrayList<>()));
+    }
+}
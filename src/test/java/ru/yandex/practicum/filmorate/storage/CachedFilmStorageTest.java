@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.MpaService;
+import ru.yandex.practicum.filmorate.storage.cache.CachedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class CachedFilmStorageTest {
+
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userStorage;
+    private final CachedFilmStorage filmCache;
+    private final MpaService mpaService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void findByIdCountsHitsAndMissesTest() {
+        CachedFilmStorage cache = new CachedFilmStorage(filmDbStorage, 10);
+        Film film = filmDbStorage.create(newFilm("cached"));
+
+        Film first = cache.findById(film.getId()).orElseThrow();
+        Film second = cache.findById(film.getId()).orElseThrow();
+
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getStats()).hasFieldOrPropertyWithValue("hits", 1L)
+                .hasFieldOrPropertyWithValue("misses", 1L);
+    }
+
+    @Test
+    public void likeInvalidatesCachedFilmTest() {
+        CachedFilmStorage cache = new CachedFilmStorage(filmDbStorage, 10);
+        Film film = filmDbStorage.create(newFilm("liked"));
+        User user = userStorage.create(new User(0, "cache@ya.ru", "cache", "Cache",
+                LocalDate.of(1990, 1, 1), new ArrayList<>()));
+
+        cache.findById(film.getId());
+        cache.addLike(film.getId(), user.getId());
+
+        assertThat(cache.findById(film.getId()).orElseThrow().getLikes()).containsExactly(user.getId());
+    }
+
+    @Test
+    public void leastRecentlyUsedFilmIsEvictedTest() {
+        CachedFilmStorage cache = new CachedFilmStorage(filmDbStorage, 2);
+        Film film1 = filmDbStorage.create(newFilm("lru1"));
+        Film film2 = filmDbStorage.create(newFilm("lru2"));
+        Film film3 = filmDbStorage.create(newFilm("lru3"));
+
+        cache.findById(film1.getId());
+        cache.findById(film2.getId());
+        cache.findById(film1.getId());
+        cache.findById(film3.getId());
+        cache.findById(film1.getId());
+        cache.findById(film2.getId());
+
+        assertThat(cache.getStats()).hasFieldOrPropertyWithValue("hits", 2L)
+                .hasFieldOrPropertyWithValue("misses", 4L)
+                .hasFieldOrPropertyWithValue("evictions", 2L)
+                .hasFieldOrPropertyWithValue("size", 2);
+    }
+
+    // Лайк другому фильму, пока фильм читается из базы, не мешает положить его в кэш
+    @Test
+    public void otherFilmInvalidationKeepsMissCacheableTest() {
+        FilmStorage engine = Mockito.mock(FilmStorage.class);
+        CachedFilmStorage cache = new CachedFilmStorage(engine, 10);
+        Film film = newFilm("keyed");
+        film.setId(1);
+        Mockito.when(engine.findById(1, true)).thenAnswer(invocation -> {
+            cache.invalidate(2);
+            return Optional.of(film);
+        });
+
+        cache.findById(1);
+        cache.findById(1);
+
+        Mockito.verify(engine, Mockito.times(1)).findById(1, true);
+    }
+
+    @Test
+    public void sameFilmInvalidationDuringMissIsNotCachedTest() {
+        FilmStorage engine = Mockito.mock(FilmStorage.class);
+        CachedFilmStorage cache = new CachedFilmStorage(engine, 10);
+        Film film = newFilm("stale");
+        film.setId(1);
+        Mockito.when(engine.findById(1, true)).thenAnswer(invocation -> {
+            cache.invalidate(1);
+            return Optional.of(film);
+        });
+
+        cache.findById(1);
+        cache.findById(1);
+
+        Mockito.verify(engine, Mockito.times(2)).findById(1, true);
+    }
+
+    @Test
+    public void clearDuringMissIsNotCachedTest() {
+        FilmStorage engine = Mockito.mock(FilmStorage.class);
+        CachedFilmStorage cache = new CachedFilmStorage(engine, 10);
+        Film film = newFilm("cleared");
+        film.setId(1);
+        Mockito.when(engine.findById(1, true)).thenAnswer(invocation -> {
+            cache.clear();
+            return Optional.of(film);
+        });
+
+        cache.findById(1);
+        cache.findById(1);
+
+        Mockito.verify(engine, Mockito.times(2)).findById(1, true);
+    }
+
+    // После перезагрузки справочника фильм из кэша не отдаётся со старым названием рейтинга
+    @Test
+    public void mpaReloadClearsCachedFilmsTest() {
+        Film film = filmDbStorage.create(newFilm("reloaded"));
+        filmCache.findById(film.getId());
+
+        jdbcTemplate.update("UPDATE RATING_MPA SET MPA_NAME = 'G-new' WHERE RATING_ID = 1");
+        try {
+            mpaService.reload();
+
+            assertThat(filmCache.findById(film.getId()).orElseThrow().getMpa().getName()).isEqualTo("G-new");
+        } finally {
+            jdbcTemplate.update("UPDATE RATING_MPA SET MPA_NAME = 'G' WHERE RATING_ID = 1");
+            mpaService.reload();
+        }
+    }
+
+    private Film newFilm(String name) {
+        return new Film(0, name, "film description", LocalDate.of(2000, 1, 1),
+                100, 5, new Mpa(1, "G", null), new ArrayList<>(), new ArrayList<>());
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementCounter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmStorageQueryCountTest {
+
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+
+    // FILMS, LIKES и FILM_GENRE - по одному запросу на список
+    private static final int LIST_QUERIES = 3;
+
+    private static int filmCounter = 0;
+
+    @Test
+    public void findAllQueryCountDoesNotDependOnFilmCountTest() {
+        addLikedFilms(3);
+        int smallCatalog = countQueries(filmStorage::findAll);
+        addLikedFilms(10);
+        int bigCatalog = countQueries(filmStorage::findAll);
+
+        assertEquals(LIST_QUERIES, smallCatalog);
+        assertEquals(LIST_QUERIES, bigCatalog);
+    }
+
+    @Test
+    public void findPopularQueryCountDoesNotDependOnCountTest() {
+        addLikedFilms(12);
+        int fewFilms = countQueries(() -> filmStorage.findPopularFilms(2));
+        int manyFilms = countQueries(() -> filmStorage.findPopularFilms(12));
+
+        assertEquals(LIST_QUERIES, fewFilms);
+        assertEquals(LIST_QUERIES, manyFilms);
+    }
+
+    @Test
+    public void findAllReturnsLikesTest() {
+        List<Film> added = addLikedFilms(2);
+        List<Film> films = filmStorage.findAll();
+
+        for (Film film : added) {
+            Film dbFilm = films.stream().filter(f -> f.getId() == film.getId()).findFirst().orElseThrow();
+            assertEquals(1, dbFilm.getLikes().size());
+        }
+    }
+
+    private List<Film> addLikedFilms(int count) {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            filmCounter++;
+            User user = userStorage.create(new User(0,
+                    "count" + filmCounter + "@ya.ru",
+                    "count" + filmCounter,
+                    "Name" + filmCounter,
+                    LocalDate.of(1980, 1, 1),
+                    new ArrayList<>()));
+            Film film = filmStorage.create(new Film(0,
+                    "film" + filmCounter,
+                    "film description",
+                    LocalDate.now().minusYears(10),
+                    90,
+                    5,
+                    new Mpa(1, "name", "description"),
+                    new ArrayList<>(),
+                    new ArrayList<>()));
+            filmStorage.addLike(film.getId(), user.getId());
+            films.add(film);
+        }
+
+        return films;
+    }
+
+    private int countQueries(Supplier<?> action) {
+        return SqlStatementCounter.count(action::get);
+    }
+}
@@ -1,27 +1,34 @@
 package ru.yandex.practicum.filmorate.storage;
 
-import lombok.RequiredArgsConstructor;
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @SpringBootTest
 @AutoConfigureTestDatabase
-@RequiredArgsConstructor(onConstructor_ = @Autowired)
 class FilmStorageTest {
-    private final FilmDbStorage filmStorage;
+    private final FilmStorage filmStorage;
+    private final GenreStorage genreStorage;
+
+    @Autowired
+    FilmStorageTest(@Qualifier("FilmStorageEngine") FilmStorage filmStorage, GenreStorage genreStorage) {
+        this.filmStorage = filmStorage;
+        this.genreStorage = genreStorage;
+    }
 
     private final Film film1 = new Film(1,
             "film1 name",
@@ -64,7 +71,7 @@ class FilmStorageTest {
     @Test
     public void getFilmByIdTest() {
         filmStorage.create(film);
-        Film dbFilm = filmStorage.findById(1);
+        Film dbFilm = filmStorage.findById(1).orElseThrow();
 
         assertThat(dbFilm).hasFieldOrPropertyWithValue("id", 1);
     }
@@ -74,11 +81,60 @@ class FilmStorageTest {
         Film added = filmStorage.create(film);
         added.setName("film updated");
         filmStorage.update(added);
-        Film dbFilm = filmStorage.findById(added.getId());
+        Film dbFilm = filmStorage.findById(added.getId()).orElseThrow();
 
         assertThat(dbFilm).hasFieldOrPropertyWithValue("name", "film updated");
     }
 
+    @Test
+    public void getFilmGenresTest() {
+        Film added = filmStorage.create(film2);
+        genreStorage.addFilmGenres(added.getId(), List.of(new Genre(2, null), new Genre(1, null)));
+        Film dbFilm = filmStorage.findById(added.getId()).orElseThrow();
+        List<Film> films = filmStorage.findAll();
+
+        assertThat(dbFilm.getGenres()).extracting(Genre::getId).containsExactly(1, 2);
+        assertThat(films).filteredOn(f -> f.getId() == added.getId())
+                .flatExtracting(Film::getGenres).extracting(Genre::getName).containsExactly("Комедия", "Драма");
+    }
+
+    @Test
+    public void updateFilmGenresTest() {
+        Film added = filmStorage.create(film1);
+        genreStorage.updateFilmGenres(added.getId(), List.of(new Genre(1, null), new Genre(2, null)));
+        List<Genre> updated = genreStorage.updateFilmGenres(added.getId(),
+                List.of(new Genre(3, null), new Genre(2, null), new Genre(3, null)));
+
+        assertThat(updated).extracting(Genre::getId).containsExactly(2, 3);
+        assertThat(filmStorage.findById(added.getId()).orElseThrow().getGenres())
+                .extracting(Genre::getId).containsExactly(2, 3);
+    }
+
+    @Test
+    public void findPageTest() {
+        Film first = filmStorage.create(film1);
+        Film second = filmStorage.create(film2);
+        Film third = filmStorage.create(film);
+
+        List<Film> firstPage = filmStorage.findPage(first.getId() - 1, 2);
+        List<Film> secondPage = filmStorage.findPage(firstPage.get(firstPage.size() - 1).getId(), 2);
+
+        assertThat(firstPage).extracting(Film::getId).containsExactly(first.getId(), second.getId());
+        assertThat(secondPage).extracting(Film::getId).containsExactly(third.getId());
+    }
+
+    @Test
+    public void streamAllTest() {
+        filmStorage.create(film1);
+        List<Film> streamed = new ArrayList<>();
+        filmStorage.streamAll(streamed::add);
+
+        assertThat(streamed).extracting(Film::getId)
+                .containsExactlyElementsOf(filmStorage.findPage(0, Integer.MAX_VALUE).stream()
+                        .map(Film::getId)
+                        .collect(Collectors.toList()));
+    }
+
     @Test
     public void deleteFilmTest() {
         Film addedFilm1 = filmStorage.create(film1);
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("memory")
+@DirtiesContext
+class InMemoryFilmStorageTest extends FilmStorageTest {
+
+    @Autowired
+    InMemoryFilmStorageTest(@Qualifier("FilmStorageEngine") FilmStorage filmStorage, GenreStorage genreStorage) {
+        super(filmStorage, genreStorage);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("memory")
+class InMemoryLikeStorageTest extends LikeStorageTest {
+
+    @Autowired
+    InMemoryLikeStorageTest(@Qualifier("FilmStorageEngine") FilmStorage filmStorage, UserStorage userStorage,
+                            JdbcTemplate jdbcTemplate) {
+        super(filmStorage, userStorage, jdbcTemplate);
+    }
+
+    // Счётчик лайков в памяти - размер набора, расходиться ему не с чем
+    @Test
+    @Override
+    public void reconcileLikeCountsRepairsDriftTest() {
+        Film film = createFilm();
+        User user = createUser();
+        filmStorage.addLike(film.getId(), user.getId());
+
+        assertThat(filmStorage.reconcileLikeCounts()).isZero();
+        assertThat(filmStorage.findLikeCounts().get(film.getId())).isEqualTo(1);
+    }
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("memory")
+class InMemoryUserFriendsStorageTest extends UserFriendsStorageTest {
+
+    @Autowired
+    InMemoryUserFriendsStorageTest(UserStorage userStorage) {
+        super(userStorage);
+    }
+}
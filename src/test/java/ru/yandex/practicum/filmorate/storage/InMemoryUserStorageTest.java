@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("memory")
+@DirtiesContext
+class InMemoryUserStorageTest extends UserStorageTest {
+
+    @Autowired
+    InMemoryUserStorageTest(UserStorage userStorage) {
+        super(userStorage);
+    }
+}
@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeRequest;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+class LikeStorageTest {
+
+    final FilmStorage filmStorage;
+    final UserStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    LikeStorageTest(@Qualifier("FilmStorageEngine") FilmStorage filmStorage, UserStorage userStorage,
+                    JdbcTemplate jdbcTemplate) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private static int counter = 0;
+
+    @Test
+    public void addLikeIsIdempotentTest() {
+        Film film = createFilm();
+        User user = createUser();
+
+        assertThat(filmStorage.addLike(film.getId(), user.getId())).isTrue();
+        assertThat(filmStorage.addLike(film.getId(), user.getId())).isFalse();
+        assertThat(filmStorage.findById(film.getId()).orElseThrow().getLikes()).containsExactly(user.getId());
+        assertThat(filmStorage.removeLike(film.getId(), user.getId())).isTrue();
+        assertThat(filmStorage.removeLike(film.getId(), user.getId())).isFalse();
+    }
+
+    @Test
+    public void concurrentIdenticalLikesInsertOnceTest() throws Exception {
+        Film film = createFilm();
+        User user = createUser();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return filmStorage.addLike(film.getId(), user.getId());
+            }));
+        }
+        start.countDown();
+        int inserted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) {
+                inserted++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(inserted).isEqualTo(1);
+        assertThat(filmStorage.findById(film.getId()).orElseThrow().getLikes()).hasSize(1);
+    }
+
+    @Test
+    public void likeCountFollowsLikesTest() {
+        Film film = createFilm();
+        User user1 = createUser();
+        User user2 = createUser();
+
+        filmStorage.addLike(film.getId(), user1.getId());
+        filmStorage.addLike(film.getId(), user1.getId());
+        filmStorage.addLikes(List.of(new LikeRequest(film.getId(), user2.getId()),
+                new LikeRequest(film.getId(), user2.getId())));
+        assertThat(filmStorage.findLikeCounts().get(film.getId())).isEqualTo(2);
+
+        filmStorage.removeLike(film.getId(), user1.getId());
+        filmStorage.removeLikes(List.of(new LikeRequest(film.getId(), user1.getId())));
+        assertThat(filmStorage.findLikeCounts().get(film.getId())).isEqualTo(1);
+    }
+
+    @Test
+    public void reconcileLikeCountsRepairsDriftTest() {
+        Film film = createFilm();
+        User user = createUser();
+        filmStorage.addLike(film.getId(), user.getId());
+        jdbcTemplate.update("UPDATE FILMS SET LIKE_COUNT = 42 WHERE FILM_ID = ?", film.getId());
+
+        assertThat(filmStorage.reconcileLikeCounts()).isEqualTo(1);
+        assertThat(filmStorage.findLikeCounts().get(film.getId())).isEqualTo(1);
+        assertThat(filmStorage.reconcileLikeCounts()).isZero();
+    }
+
+    @Test
+    public void findPopularFilmsOrdersByLikeCountTest() {
+        Film film1 = createFilm();
+        Film film2 = createFilm();
+        User user1 = createUser();
+        User user2 = createUser();
+        filmStorage.addLike(film2.getId(), user1.getId());
+        filmStorage.addLike(film2.getId(), user2.getId());
+        filmStorage.addLike(film1.getId(), user1.getId());
+
+        List<Film> popular = filmStorage.findPopularFilms(Integer.MAX_VALUE);
+
+        assertThat(popular).extracting(Film::getId).containsSubsequence(film2.getId(), film1.getId());
+    }
+
+    // Оба хранилища отклоняют лайк несуществующему фильму или от несуществующего пользователя одинаково,
+    // а пачка с таким лайком не пишется целиком
+    @Test
+    public void likeForMissingFilmOrUserIsRejectedTest() {
+        Film film = createFilm();
+        User user = createUser();
+
+        assertThatThrownBy(() -> filmStorage.addLike(Integer.MAX_VALUE, user.getId()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> filmStorage.addLike(film.getId(), Integer.MAX_VALUE))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> filmStorage.addLikes(List.of(new LikeRequest(film.getId(), user.getId()),
+                new LikeRequest(film.getId(), Integer.MAX_VALUE))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(filmStorage.findById(film.getId()).orElseThrow().getLikes()).isEmpty();
+    }
+
+    // Удаление пользователя с лайками запрещено в обоих хранилищах, лайк остаётся на месте
+    @Test
+    public void deleteUserWithLikesIsRejectedTest() {
+        Film film = createFilm();
+        User user = createUser();
+        filmStorage.addLike(film.getId(), user.getId());
+
+        assertThatThrownBy(() -> userStorage.deleteUser(user)).isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> userStorage.deleteById(user.getId()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(userStorage.isNotExist(user.getId())).isFalse();
+        assertThat(filmStorage.findById(film.getId()).orElseThrow().getLikes()).containsExactly(user.getId());
+
+        filmStorage.removeLike(film.getId(), user.getId());
+        assertThat(userStorage.deleteUser(user)).isTrue();
+    }
+
+    Film createFilm() {
+        counter++;
+        return filmStorage.create(new Film(0, "like film " + counter, "film description",
+                LocalDate.of(2000, 1, 1), 100, 5, new Mpa(1, "G", null), new ArrayList<>(), new ArrayList<>()));
+    }
+
+    User createUser() {
+        counter++;
+        return userStorage.create(new User(0, "like" + counter + "@ya.ru", "like" + counter, "Like" + counter,
+                LocalDate.of(1990, 1, 1), new ArrayList<>()));
+    }
+}
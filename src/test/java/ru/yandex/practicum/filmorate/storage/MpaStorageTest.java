@@ -38,4 +38,15 @@ class MpaStorageTest {
                         assertThat(mpa).hasFieldOrPropertyWithValue("id", 1)
                 );
     }
+
+    @Test
+    public void getMpaByIdReturnsSharedInstanceTest() {
+        Mpa mpa = mpaStorage.findById(2);
+
+        assertThat(mpaStorage.findById(2)).isSameAs(mpa);
+
+        mpaStorage.reload();
+
+        assertThat(mpaStorage.findById(2)).hasFieldOrPropertyWithValue("name", "PG");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Прогоняет все методы storage/dao, собирает выполненные SQL-запросы и проверяет их планы через EXPLAIN:
+ * запрос не должен читать таблицу целиком, если это не выгрузка всего списка.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class QueryPlanTest {
+
+    // Запросы, которым полный просмотр таблицы нужен по смыслу
+    private static final Set<String> FULL_SCANS = Set.of(
+            "SELECT * FROM FILMS",
+            "SELECT FILM_ID, USER_ID FROM LIKES",
+            "SELECT FILM_ID, GENRE_ID FROM FILM_GENRE ORDER BY FILM_ID, GENRE_ID",
+            "SELECT FILM_ID, LIKE_COUNT FROM FILMS",
+            "SELECT * FROM USERS",
+            "SELECT USER_ID, FRIEND_ID FROM FRIENDSHIP",
+            "SELECT GENRE_ID, GENRE_NAME FROM GENRES ORDER BY GENRE_ID",
+            "SELECT * FROM RATING_MPA ORDER BY RATING_ID",
+            "UPDATE FILMS SET LIKE_COUNT = (SELECT COUNT(*) FROM LIKES WHERE LIKES.FILM_ID = FILMS.FILM_ID) " +
+                    "WHERE LIKE_COUNT <> (SELECT COUNT(*) FROM LIKES WHERE LIKES.FILM_ID = FILMS.FILM_ID)"
+    );
+
+    // Обход таблицы или индекса без условия: /* PUBLIC.FILMS.tableScan */ или /* PUBLIC.IDX_NAME */
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* PUBLIC\\.[A-Z0-9_]+(\\.tableScan)? \\*/");
+
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final GenreDbStorage genreStorage;
+    private final MpaDbStorage mpaStorage;
+    private final DataSource dataSource;
+
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void daoQueriesUseIndexesTest() throws SQLException {
+        Mockito.clearInvocations(jdbcTemplate);
+        runAllStorageMethods();
+        Set<String> statements = collectStatements();
+
+        assertThat(statements).isNotEmpty();
+        List<String> scans = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (String sql : statements) {
+                String plan = explain(connection, sql);
+                if (isFullScan(plan) && !FULL_SCANS.contains(sql)) {
+                    scans.add(sql + "\n" + plan);
+                }
+            }
+        }
+
+        assertThat(scans).as("Запросы без индекса").isEmpty();
+    }
+
+    @Test
+    public void fullScanIsDetectedTest() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            assertThat(isFullScan(explain(connection, "SELECT * FROM FILMS WHERE FILM_NAME = ?"))).isTrue();
+            assertThat(isFullScan(explain(connection, "SELECT * FROM LIKES WHERE USER_ID + 0 = ?"))).isTrue();
+            assertThat(isFullScan(explain(connection, "SELECT * FROM FILMS WHERE FILM_ID = ?"))).isFalse();
+        }
+    }
+
+    private void runAllStorageMethods() {
+        User user = userStorage.create(new User(0, "plan1@ya.ru", "plan1", "Plan1",
+                LocalDate.of(1990, 1, 1), new ArrayList<>()));
+        User friend = userStorage.create(new User(0, "plan2@ya.ru", "plan2", "Plan2",
+                LocalDate.of(1990, 1, 1), new ArrayList<>()));
+        userStorage.update(user);
+        userStorage.findById(user.getId());
+        userStorage.findUser(user.getId());
+        userStorage.findUsers();
+        userStorage.findAll();
+        userStorage.findPage(0, 10);
+        userStorage.streamAll(u -> { });
+        userStorage.addFriendship(user.getId(), friend.getId());
+        userStorage.addFriendship(friend.getId(), user.getId());
+        userStorage.findFriends(user.getId());
+        userStorage.findCommonFriends(user.getId(), friend.getId());
+        userStorage.removeFriendship(friend.getId(), user.getId());
+        userStorage.isNotExist(Integer.MAX_VALUE);
+        userStorage.findExistingIds(List.of(user.getId(), friend.getId()));
+
+        Film film = filmStorage.create(new Film(0, "plan", "film description", LocalDate.of(2000, 1, 1),
+                100, 5, new Mpa(1, "G", null), new ArrayList<>(), new ArrayList<>()));
+        filmStorage.update(film);
+        filmStorage.findById(film.getId());
+        filmStorage.findAll();
+        filmStorage.findPage(0, 10);
+        filmStorage.streamAll(f -> { });
+        filmStorage.addLike(film.getId(), user.getId());
+        filmStorage.addLikes(List.of(new LikeRequest(film.getId(), friend.getId())));
+        filmStorage.findPopularFilms(10);
+        filmStorage.findByIds(List.of(film.getId()));
+        filmStorage.findLikeCounts();
+        filmStorage.findExistingIds(List.of(film.getId()));
+        filmStorage.removeLike(film.getId(), user.getId());
+        filmStorage.removeLikes(List.of(new LikeRequest(film.getId(), friend.getId())));
+        filmStorage.reconcileLikeCounts();
+
+        genreStorage.reload();
+        genreStorage.addFilmGenres(film.getId(), List.of(new Genre(1, null)));
+        genreStorage.updateFilmGenres(film.getId(), List.of(new Genre(2, null)));
+        genreStorage.getGenresByFilmId(film.getId());
+        genreStorage.loadFilmGenres(List.of(film));
+        genreStorage.deleteFilmGenres(film.getId());
+        mpaStorage.reload();
+
+        filmStorage.delete(film);
+        userStorage.deleteUser(userStorage.create(new User(0, "plan3@ya.ru", "plan3", "Plan3",
+                LocalDate.of(1990, 1, 1), new ArrayList<>())));
+    }
+
+    private Set<String> collectStatements() {
+        Set<String> statements = new LinkedHashSet<>();
+        Mockito.mockingDetails(jdbcTemplate).getInvocations().forEach(invocation -> {
+            if (invocation.getArguments().length > 0 && invocation.getArgument(0) instanceof String) {
+                statements.add(invocation.getArgument(0));
+            }
+        });
+
+        return statements;
+    }
+
+    // Значения параметров на план не влияют, поэтому подставляется 1
+    private String explain(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setInt(i, 1);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+            }
+
+            return plan.toString();
+        }
+    }
+
+    // Первые N строк по отсортированному индексу читаются без полного обхода
+    private boolean isFullScan(String plan) {
+        boolean topN = plan.contains("FETCH FIRST") && plan.contains("/* index sorted */");
+
+        return FULL_SCAN.matcher(plan).find() && !topN;
+    }
+}
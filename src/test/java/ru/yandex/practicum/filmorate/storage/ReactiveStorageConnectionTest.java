@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.reactive.ReactiveFilmStorage;
+import ru.yandex.practicum.filmorate.storage.reactive.ReactiveUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// В реактивном пуле одно соединение: если пачка просит второе, пока курсор держит первое, чтение зависнет
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactivepool;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "filmorate.reactive.pool.max-size=1"
+})
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReactiveStorageConnectionTest {
+
+    // Пачки, пока курсор открыт, копятся в очереди concatMap (32 пачки по 500), поэтому строк нужно больше
+    private static final int ROWS = 20_000;
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReactiveFilmStorage reactiveFilmStorage;
+    private final ReactiveUserStorage reactiveUserStorage;
+
+    private User user;
+
+    @BeforeEach
+    public void addData() {
+        user = userStorage.create(new User(0, "pool@ya.ru", "pool", "Pool",
+                LocalDate.of(1990, 1, 1), new ArrayList<>()));
+        jdbcTemplate.update("INSERT INTO FILMS (FILM_NAME, DESCRIPTION, RELEASE_DATE, DURATION, RATE, RATING_ID) " +
+                "SELECT 'pool' || X, 'film description', DATE '2000-01-01', 100, 5, 1 FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.update("INSERT INTO USERS (EMAIL, LOGIN, USER_NAME, BIRTHDAY) " +
+                "SELECT 'pool' || X || '@ya.ru', 'pool' || X, 'Pool' || X, DATE '1990-01-01' FROM SYSTEM_RANGE(1, ?)",
+                ROWS);
+        jdbcTemplate.update("INSERT INTO FRIENDSHIP (USER_ID, FRIEND_ID, STATUS) " +
+                "SELECT ?, USER_ID, false FROM USERS WHERE LOGIN LIKE 'pool_%'", user.getId());
+    }
+
+    @Test
+    public void detailsAreReadOnCursorConnectionTest() {
+        assertThat(reactiveFilmStorage.findAll().count().block(TIMEOUT)).isGreaterThanOrEqualTo(ROWS);
+        assertThat(reactiveFilmStorage.findPage(0, ROWS).count().block(TIMEOUT)).isEqualTo(ROWS);
+        assertThat(reactiveUserStorage.findFriends(user.getId()).count().block(TIMEOUT)).isEqualTo(ROWS);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Повторный прогон schema.sql на базе, созданной до новых колонок и ограничений:
+ * так schema.sql запускается на файловой базе при каждом старте приложения.
+ */
+class SchemaMigrationTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void createOldDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:migration;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        run(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"));
+        jdbcTemplate.update("INSERT INTO USERS (EMAIL, LOGIN, USER_NAME, BIRTHDAY) " +
+                "VALUES ('old@ya.ru', 'old', 'Old', DATE '1990-01-01'), ('new@ya.ru', 'new', 'New', DATE '1990-01-01')");
+        jdbcTemplate.update("INSERT INTO FILMS (FILM_NAME, DESCRIPTION, RELEASE_DATE, DURATION, RATE, RATING_ID) " +
+                "VALUES ('old', 'old film', DATE '2000-01-01', 100, 5, 1)");
+        // База до LIKE_COUNT: лайки есть, счётчика нет
+        jdbcTemplate.execute("DROP INDEX IDX_Films_LikeCount");
+        jdbcTemplate.execute("ALTER TABLE FILMS DROP COLUMN LIKE_COUNT");
+        jdbcTemplate.update("INSERT INTO LIKES (USER_ID, FILM_ID) SELECT USERS.USER_ID, FILMS.FILM_ID FROM USERS, FILMS");
+    }
+
+    @AfterEach
+    public void dropDatabase() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void likeCountIsBackfilledTest() {
+        runSchema();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT LIKE_COUNT FROM FILMS WHERE FILM_NAME = 'old'", Integer.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void duplicateLikesAreRemovedBeforeUniqueKeyTest() {
+        // База до уникального ключа, с дублями от гонки проверки и вставки
+        jdbcTemplate.execute("ALTER TABLE LIKES DROP CONSTRAINT UC_Like_UserID_FilmID");
+        jdbcTemplate.update("INSERT INTO LIKES (USER_ID, FILM_ID) SELECT USER_ID, FILM_ID FROM LIKES");
+        Integer firstLikeId = jdbcTemplate.queryForObject("SELECT MIN(LIKE_ID) FROM LIKES", Integer.class);
+
+        runSchema();
+
+        assertThat(jdbcTemplate.queryForList("SELECT LIKE_ID FROM LIKES ORDER BY LIKE_ID", Integer.class))
+                .containsExactly(firstLikeId, firstLikeId + 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT LIKE_COUNT FROM FILMS WHERE FILM_NAME = 'old'", Integer.class))
+                .isEqualTo(2);
+    }
+
+    // data.sql очищает таблицы, поэтому повторно прогоняется только схема
+    private void runSchema() {
+        run(new ClassPathResource("schema.sql"));
+    }
+
+    private void run(ClassPathResource... scripts) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(scripts);
+        populator.setSqlScriptEncoding(StandardCharsets.UTF_8.name());
+        populator.execute(jdbcTemplate.getDataSource());
+    }
+}
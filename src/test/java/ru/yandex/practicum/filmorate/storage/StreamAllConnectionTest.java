@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// В пуле одно соединение: если пачка выгрузки просит второе, пока открыт курсор, запрос упадёт по таймауту.
+// База задаётся явно, так как @AutoConfigureTestDatabase подменяет пул на DataSource без ограничения соединений
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stream;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=1000"
+})
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class StreamAllConnectionTest {
+
+    // Больше одной пачки выгрузки
+    private static final int ROWS = 600;
+
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+
+    @BeforeEach
+    public void addData() {
+        for (int i = 0; i < ROWS; i++) {
+            userStorage.create(new User(0, "stream" + i + "@ya.ru", "stream" + i, "Stream" + i,
+                    LocalDate.of(1990, 1, 1), new ArrayList<>()));
+            filmStorage.create(new Film(0, "stream" + i, "film description", LocalDate.of(2000, 1, 1),
+                    100, 5, new Mpa(1, "G", null), new ArrayList<>(), new ArrayList<>()));
+        }
+    }
+
+    @Test
+    public void streamAllUsesOneConnectionTest() {
+        AtomicInteger films = new AtomicInteger();
+        AtomicInteger users = new AtomicInteger();
+
+        filmStorage.streamAll(film -> films.incrementAndGet());
+        userStorage.streamAll(user -> users.incrementAndGet());
+
+        assertThat(films.get()).isGreaterThanOrEqualTo(ROWS);
+        assertThat(users.get()).isGreaterThanOrEqualTo(ROWS);
+    }
+}
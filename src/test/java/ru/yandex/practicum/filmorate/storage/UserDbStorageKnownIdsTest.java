@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class UserDbStorageKnownIdsTest {
+
+    private final UserDbStorage userStorage;
+    private final DataSource dataSource;
+
+    private static int counter = 0;
+
+    // Проверка прочитала пользователя, а удаление прошло до того, как id попал в кэш
+    @Test
+    public void deleteDuringExistenceCheckIsNotCachedTest() throws Exception {
+        User user = createUser();
+        PausingJdbcTemplate jdbcTemplate = new PausingJdbcTemplate(dataSource);
+        UserDbStorage storage = new UserDbStorage(jdbcTemplate);
+
+        CompletableFuture<Boolean> check = CompletableFuture.supplyAsync(() -> storage.isNotExist(user.getId()));
+        assertThat(jdbcTemplate.queried.await(5, TimeUnit.SECONDS)).isTrue();
+        storage.deleteUser(user);
+        jdbcTemplate.proceed.countDown();
+
+        assertThat(check.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(storage.isNotExist(user.getId())).isTrue();
+    }
+
+    @Test
+    public void deleteDuringBatchCheckIsNotCachedTest() throws Exception {
+        User user = createUser();
+        PausingJdbcTemplate jdbcTemplate = new PausingJdbcTemplate(dataSource);
+        UserDbStorage storage = new UserDbStorage(jdbcTemplate);
+
+        CompletableFuture<?> check = CompletableFuture.supplyAsync(() ->
+                storage.findExistingIds(List.of(user.getId())));
+        assertThat(jdbcTemplate.queried.await(5, TimeUnit.SECONDS)).isTrue();
+        storage.deleteUser(user);
+        jdbcTemplate.proceed.countDown();
+        check.get(5, TimeUnit.SECONDS);
+
+        assertThat(storage.findExistingIds(List.of(user.getId()))).isEmpty();
+    }
+
+    private User createUser() {
+        counter++;
+
+        return userStorage.create(new User(0, "known" + counter + "@ya.ru", "known" + counter,
+                "Known" + counter, LocalDate.of(1990, 1, 1), new ArrayList<>()));
+    }
+
+    // Первая проверка существования останавливается после запроса, пока тест не разрешит продолжить
+    private static final class PausingJdbcTemplate extends JdbcTemplate {
+
+        private final CountDownLatch queried = new CountDownLatch(1);
+        private final CountDownLatch proceed = new CountDownLatch(1);
+
+        private PausingJdbcTemplate(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            T result = super.queryForObject(sql, requiredType, args);
+            pause();
+
+            return result;
+        }
+
+        @Override
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            List<T> result = super.queryForList(sql, elementType, args);
+            pause();
+
+            return result;
+        }
+
+        private void pause() {
+            if (queried.getCount() == 0) {
+                return;
+            }
+            queried.countDown();
+            try {
+                proceed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
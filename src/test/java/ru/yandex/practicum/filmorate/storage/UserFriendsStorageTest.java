@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class UserFriendsStorageTest {
+
+    private final UserStorage userStorage;
+
+    private static int userCounter = 0;
+
+    @Test
+    public void findFriendsTest() {
+        User user = createUser();
+        User friend1 = createUser();
+        User friend2 = createUser();
+        userStorage.addFriendship(user.getId(), friend1.getId());
+        userStorage.addFriendship(user.getId(), friend2.getId());
+        userStorage.addFriendship(friend1.getId(), user.getId());
+
+        List<User> friends = userStorage.findFriends(user.getId());
+
+        assertThat(friends).extracting(User::getId).containsExactly(friend1.getId(), friend2.getId());
+        assertThat(friends.get(0).getFriends()).containsExactly(user.getId());
+        assertThat(friends.get(1).getFriends()).isEmpty();
+    }
+
+    @Test
+    public void findCommonFriendsTest() {
+        User user = createUser();
+        User other = createUser();
+        User common = createUser();
+        User notCommon = createUser();
+        userStorage.addFriendship(user.getId(), common.getId());
+        userStorage.addFriendship(user.getId(), notCommon.getId());
+        userStorage.addFriendship(other.getId(), common.getId());
+
+        List<User> commonFriends = userStorage.findCommonFriends(user.getId(), other.getId());
+
+        assertThat(commonFriends).extracting(User::getId).containsExactly(common.getId());
+    }
+
+    @Test
+    public void isNotExistFollowsCreateAndDeleteTest() {
+        User user = createUser();
+
+        assertThat(userStorage.isNotExist(user.getId())).isFalse();
+        assertThat(userStorage.isNotExist(Integer.MAX_VALUE)).isTrue();
+
+        userStorage.deleteUser(user);
+
+        assertThat(userStorage.isNotExist(user.getId())).isTrue();
+    }
+
+    private User createUser() {
+        userCounter++;
+
+        return userStorage.create(new User(0,
+                "friend" + userCounter + "@ya.ru",
+                "friend" + userCounter,
+                "Friend" + userCounter,
+                LocalDate.of(1990, 1, 1),
+                new ArrayList<>()));
+    }
+}